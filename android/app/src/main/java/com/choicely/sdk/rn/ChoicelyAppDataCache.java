@@ -0,0 +1,129 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.choicely.sdk.service.log.QLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Last known Choicely app custom data, persisted so the next launch can select the bundle (and
+ * expose the data to JS) before the app data request returns.
+ * <p>
+ * The fields the bundle selection reads are kept separately from the rest of the custom data, all
+ * in one small JSON object written via temp file + rename.
+ */
+public final class ChoicelyAppDataCache {
+    private static final String TAG = "ChoicelyAppDataCache";
+    private static final String KEY_BUNDLE_URL_MOBILE = "bundle_url_mobile";
+    private static final String KEY_FULL_VERSION_NAME = "full_version_name";
+    private static final String KEY_FETCHED_AT = "fetched_at";
+    private static final String KEY_CUSTOM_DATA = "custom_data";
+
+    /**
+     * Values from one app data response.
+     */
+    public static final class Entry {
+        @NonNull
+        public final String bundleUrlMobile;
+        @NonNull
+        public final String fullVersionName;
+        /**
+         * Wall-clock time the values were received.
+         */
+        public final long fetchedAt;
+        /**
+         * The whole custom data object as received.
+         */
+        @NonNull
+        public final JSONObject customData;
+
+        public Entry(@NonNull final JSONObject customData, final long fetchedAt) {
+            this.bundleUrlMobile = customData.optString(KEY_BUNDLE_URL_MOBILE, "");
+            this.fullVersionName = customData.optString(KEY_FULL_VERSION_NAME, "");
+            this.fetchedAt = fetchedAt;
+            this.customData = customData;
+        }
+
+        public boolean isFresh(final long ttlMs, final long now) {
+            // A clock set backwards makes the entry stale rather than fresh forever.
+            return now >= fetchedAt && now - fetchedAt < ttlMs;
+        }
+
+        /**
+         * @return true if the bundle-selecting values are the same; the fetch time is ignored.
+         */
+        public boolean sameValues(@Nullable final Entry other) {
+            return other != null
+                    && bundleUrlMobile.equals(other.bundleUrlMobile)
+                    && fullVersionName.equals(other.fullVersionName);
+        }
+    }
+
+    @NonNull
+    private final File file;
+
+    private boolean loaded;
+    @Nullable
+    private Entry entry;
+
+    public ChoicelyAppDataCache(@NonNull final File file) {
+        this.file = file;
+    }
+
+    @Nullable
+    public synchronized Entry get() {
+        if (!loaded) {
+            loaded = true;
+            entry = read(file);
+        }
+        return entry;
+    }
+
+    /**
+     * Stores {@code next}, replacing the previous entry.
+     *
+     * @return true if the bundle-selecting values changed (or nothing was cached before).
+     */
+    public synchronized boolean put(@NonNull final Entry next) {
+        final boolean changed = !next.sameValues(get());
+        entry = next;
+        try {
+            final JSONObject json = new JSONObject();
+            json.put(KEY_FETCHED_AT, next.fetchedAt);
+            json.put(KEY_CUSTOM_DATA, next.customData);
+            final File parent = file.getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Could not create " + parent);
+            }
+            ChoicelyFiles.writeAtomically(file, json.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            QLog.e(e, TAG, "App data cache write failed: " + file);
+        }
+        return changed;
+    }
+
+    @Nullable
+    private static Entry read(@NonNull final File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            final JSONObject json = new JSONObject(new String(ChoicelyFiles.readBytes(file), StandardCharsets.UTF_8));
+            final JSONObject customData = json.optJSONObject(KEY_CUSTOM_DATA);
+            if (customData == null) {
+                return null;
+            }
+            return new Entry(customData, json.optLong(KEY_FETCHED_AT, 0));
+        } catch (IOException | JSONException e) {
+            QLog.e(e, TAG, "App data cache unreadable: " + file);
+            return null;
+        }
+    }
+}
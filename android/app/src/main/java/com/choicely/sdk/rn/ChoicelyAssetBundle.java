@@ -0,0 +1,168 @@
+package com.choicely.sdk.rn;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.choicely.sdk.service.log.QLog;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The bundle shipped in the APK, copied once per install to a file the React host can load
+ * memory-mapped.
+ * <p>
+ * React Native reads an {@code assets://} bundle into a heap buffer on every launch, inflating it
+ * first if it is stored compressed. A file bundle is mmapped instead: pages are read on demand and
+ * stay clean, so the system can drop them under memory pressure. The first launch after an install
+ * or update loads the asset and copies it in the background; later launches load the copy. The
+ * build stores .bundle assets uncompressed, so the copy is a kernel-side transfer out of the APK.
+ * <p>
+ * Copies are keyed by the APK's size and modification time; the copy for a previous APK is
+ * deleted once the current one exists.
+ */
+public final class ChoicelyAssetBundle {
+    private static final String TAG = "ChoicelyAssetBundle";
+
+    @NonNull
+    private final Context context;
+    @NonNull
+    private final File dir;
+    @NonNull
+    private final String assetName;
+    @NonNull
+    private final AtomicBoolean copying = new AtomicBoolean();
+
+    public ChoicelyAssetBundle(@NonNull final Context context, @NonNull final File dir, @NonNull final String assetName) {
+        this.context = context.getApplicationContext();
+        this.dir = dir;
+        this.assetName = assetName;
+    }
+
+    /**
+     * @return the copy for the installed APK, or null if it has not been made yet.
+     */
+    @Nullable
+    public File getFile() {
+        final File file = currentFile();
+        return file.isFile() ? file : null;
+    }
+
+    /**
+     * Makes the copy on a background thread, unless it exists or is already being made.
+     */
+    public void copyAsync() {
+        if (getFile() != null || !copying.compareAndSet(false, true)) {
+            return;
+        }
+        ChoicelyRNConfig.getBackgroundExecutor().execute(() -> {
+            try {
+                copy();
+            } finally {
+                copying.set(false);
+            }
+        });
+    }
+
+    /**
+     * @return true if the copy exists afterwards.
+     */
+    @WorkerThread
+    boolean copy() {
+        final File target = currentFile();
+        if (target.isFile()) {
+            return true;
+        }
+        final File versionDir = target.getParentFile();
+        final File tmp = new File(versionDir, assetName + ".tmp");
+        try {
+            if (!versionDir.isDirectory() && !versionDir.mkdirs()) {
+                throw new IOException("Could not create " + versionDir);
+            }
+            try (final FileOutputStream out = new FileOutputStream(tmp, false)) {
+                try {
+                    transferUncompressed(out.getChannel());
+                } catch (FileNotFoundException e) {
+                    // openFd only works for assets stored uncompressed.
+                    out.getChannel().truncate(0);
+                    inflate(out);
+                }
+                out.getFD().sync();
+            }
+            if (!tmp.renameTo(target)) {
+                throw new IOException("Rename failed " + tmp + " -> " + target);
+            }
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            QLog.e(e, TAG, "Copying asset " + assetName + " failed; it keeps loading from the APK");
+            return false;
+        }
+        deleteOtherVersions(versionDir);
+        return true;
+    }
+
+    private void transferUncompressed(@NonNull final FileChannel out) throws IOException {
+        try (final AssetFileDescriptor afd = context.getAssets().openFd(assetName);
+             final FileInputStream in = afd.createInputStream()) {
+            final FileChannel channel = in.getChannel();
+            final long start = afd.getStartOffset();
+            final long length = afd.getLength();
+            long done = 0;
+            while (done < length) {
+                final long n = channel.transferTo(start + done, length - done, out);
+                if (n <= 0) {
+                    throw new IOException("Asset " + assetName + " truncated at " + done + "/" + length);
+                }
+                done += n;
+            }
+        }
+    }
+
+    private void inflate(@NonNull final FileOutputStream out) throws IOException {
+        try (final InputStream in = context.getAssets().open(assetName)) {
+            final byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                out.write(buf, 0, n);
+            }
+        }
+    }
+
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    private void deleteOtherVersions(@NonNull final File keep) {
+        final File[] versions = dir.listFiles();
+        if (versions == null) {
+            return;
+        }
+        for (final File version : versions) {
+            if (version.equals(keep)) {
+                continue;
+            }
+            final File[] files = version.listFiles();
+            if (files != null) {
+                for (final File file : files) {
+                    file.delete();
+                }
+            }
+            version.delete();
+        }
+    }
+
+    @NonNull
+    private File currentFile() {
+        final File apk = new File(context.getPackageCodePath());
+        final String version = Long.toHexString(apk.length()) + "-" + Long.toHexString(apk.lastModified());
+        return new File(new File(dir, version), assetName);
+    }
+}
@@ -0,0 +1,69 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.jni.HybridData;
+import com.facebook.jni.annotations.DoNotStrip;
+import com.facebook.react.runtime.BindingsInstaller;
+
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Puts {@code global.__choicely} into every JS runtime (see jni/choicely/ChoicelyBindingsInstaller.h):
+ * <pre>
+ *   __choicely.config.rn_prewarm          // choicely_config.json values
+ *   __choicely.appData.full_version_name  // last known app custom data
+ * </pre>
+ * Reads are synchronous JSI host-object lookups in native memory; values are strings, missing
+ * keys are {@code undefined}.
+ */
+@DoNotStrip
+public final class ChoicelyBindingsInstaller extends BindingsInstaller {
+    private ChoicelyBindingsInstaller(@NonNull final HybridData hybridData) {
+        super(hybridData);
+    }
+
+    /**
+     * @return an installer exposing {@code config}, or null if the native library is missing.
+     */
+    @Nullable
+    public static ChoicelyBindingsInstaller create(@NonNull final ChoicelyConfigSnapshot config) {
+        if (!ChoicelyNativeLibrary.isAvailable()) {
+            return null;
+        }
+        final Map<String, String> values = config.toStringMap();
+        return new ChoicelyBindingsInstaller(initHybrid(
+                values.keySet().toArray(new String[0]),
+                values.values().toArray(new String[0])
+        ));
+    }
+
+    /**
+     * Replaces what {@code __choicely.appData} returns, in every runtime, from the next read on.
+     * Top-level values only; nested objects and arrays are exposed as JSON text.
+     */
+    public static void updateAppData(@Nullable final JSONObject customData) {
+        if (!ChoicelyNativeLibrary.isAvailable()) {
+            return;
+        }
+        final int size = customData != null ? customData.length() : 0;
+        final String[] keys = new String[size];
+        final String[] values = new String[size];
+        int i = 0;
+        if (customData != null) {
+            for (final Iterator<String> it = customData.keys(); it.hasNext() && i < size; i++) {
+                keys[i] = it.next();
+                values[i] = customData.optString(keys[i], "");
+            }
+        }
+        setAppData(keys, values);
+    }
+
+    private static native HybridData initHybrid(@NonNull String[] keys, @NonNull String[] values);
+
+    private static native void setAppData(@NonNull String[] keys, @NonNull String[] values);
+}
@@ -0,0 +1,204 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.choicely.sdk.service.log.QLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+
+/**
+ * Coordinates all bundle transfers on one bounded, shared executor.
+ * <ul>
+ *   <li>Identical requests (same URL and destination) share a single in-flight future.</li>
+ *   <li>A request for a different URL into the same destination supersedes the older one: the
+ *   older job is cancelled right away (its HTTP call is aborted) instead of after its transfer.</li>
+ *   <li>Commits into one destination are serialized, and a superseded job can never commit.</li>
+ * </ul>
+ */
+public final class ChoicelyBundleDownloads {
+    private static final String TAG = "ChoicelyBundleDownloads";
+    private static final int THREADS = 2;
+    private static final int QUEUE_CAPACITY = 16;
+
+    private static final ChoicelyBundleDownloads INSTANCE = new ChoicelyBundleDownloads();
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Entry> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Job> latestByDest = new ConcurrentHashMap<>();
+    private final Map<String, Object> commitLocks = new ConcurrentHashMap<>();
+
+    @VisibleForTesting
+    ChoicelyBundleDownloads() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                THREADS,
+                THREADS,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY),
+                r -> {
+                    final Thread t = new Thread(r, "choicely-bundle-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+        );
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @NonNull
+    public static ChoicelyBundleDownloads get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Run {@code task} for (url, destFile), or join the identical job already in flight.
+     *
+     * @return future completing with the task result; false if the job was superseded, rejected
+     * or threw.
+     */
+    @NonNull
+    public CompletableFuture<Boolean> submit(@NonNull final String url,
+                                             @NonNull final File destFile,
+                                             @NonNull final Task task) {
+        final String destKey = destFile.getAbsolutePath();
+        final String key = url + "\n" + destKey;
+        final Entry created = new Entry(new Job(url, destFile, commitLocks.computeIfAbsent(destKey, k -> new Object())));
+        final Entry existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing.future;
+        }
+        final Job job = created.job;
+        final Job previous = latestByDest.put(destKey, job);
+        if (previous != null) {
+            previous.cancel();
+        }
+        created.future.whenComplete((ok, e) -> {
+            inFlight.remove(key, created);
+            latestByDest.remove(destKey, job);
+        });
+        try {
+            executor.execute(() -> {
+                boolean ok = false;
+                try {
+                    ok = !job.isCancelled() && task.run(job);
+                } catch (Exception e) {
+                    QLog.e(e, TAG, "Bundle job failed: " + url);
+                }
+                created.future.complete(ok && !job.isCancelled());
+            });
+        } catch (RejectedExecutionException e) {
+            QLog.e(TAG, "Bundle job rejected, queue full: " + url);
+            created.future.complete(false);
+        }
+        return created.future;
+    }
+
+    @VisibleForTesting
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    @VisibleForTesting
+    public int queuedCount() {
+        return executor.getQueue().size();
+    }
+
+    @VisibleForTesting
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Work executed for one (url, destination) pair.
+     */
+    public interface Task {
+        boolean run(@NonNull Job job) throws Exception;
+    }
+
+    /**
+     * Commit step run under the destination lock.
+     */
+    public interface Commit {
+        boolean run() throws IOException;
+    }
+
+    /**
+     * Handle given to a running {@link Task}. Lets the task register its HTTP call so it can be
+     * aborted when superseded, and gates the final commit.
+     */
+    public static final class Job {
+        @NonNull
+        public final String url;
+        @NonNull
+        public final File destFile;
+        @NonNull
+        private final Object commitLock;
+        private volatile boolean cancelled;
+        @Nullable
+        private volatile Call call;
+
+        Job(@NonNull final String url, @NonNull final File destFile, @NonNull final Object commitLock) {
+            this.url = url;
+            this.destFile = destFile;
+            this.commitLock = commitLock;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        void cancel() {
+            cancelled = true;
+            final Call c = call;
+            if (c != null) {
+                c.cancel();
+            }
+        }
+
+        /**
+         * Registers the call currently doing this job's I/O.
+         */
+        public void attach(@NonNull final Call call) {
+            this.call = call;
+            if (cancelled) {
+                call.cancel();
+            }
+        }
+
+        /**
+         * Runs {@code commit} unless this job has been superseded. Commits into the same
+         * destination never overlap.
+         */
+        public boolean commit(@NonNull final Commit commit) throws IOException {
+            synchronized (commitLock) {
+                if (cancelled) {
+                    return false;
+                }
+                return commit.run();
+            }
+        }
+    }
+
+    private static final class Entry {
+        @NonNull
+        final Job job;
+        @NonNull
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        Entry(@NonNull final Job job) {
+            this.job = job;
+        }
+    }
+}
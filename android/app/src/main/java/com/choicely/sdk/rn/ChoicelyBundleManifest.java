@@ -0,0 +1,114 @@
+package com.choicely.sdk.rn;
+
+import android.text.TextUtils;
+import android.util.Base64;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.choicely.sdk.service.log.QLog;
+
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Locale;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Per-version manifest listing the expected digest of each bundle artifact.
+ * <p>
+ * Served next to the bundle as:
+ * <pre>
+ * {
+ *   "payload": "&lt;base64 of {\"files\": {\"index.android.bundle\": {\"sha256\": \"&lt;hex&gt;\"}}}&gt;",
+ *   "signature": "&lt;base64 SHA256withECDSA over the decoded payload bytes&gt;"
+ * }
+ * </pre>
+ * When a public key is configured the signature is mandatory and a missing or invalid manifest
+ * rejects the update. Without a key the manifest is optional and only guards against corruption.
+ */
+public final class ChoicelyBundleManifest {
+    private static final String TAG = "ChoicelyBundleManifest";
+    private static final String SIGNATURE_ALGORITHM = "SHA256withECDSA";
+    private static final int HTTP_NOT_FOUND = 404;
+
+    /**
+     * Manifest used when none is published and none is required.
+     */
+    public static final ChoicelyBundleManifest EMPTY = new ChoicelyBundleManifest(new JSONObject());
+
+    @NonNull
+    private final JSONObject files;
+
+    private ChoicelyBundleManifest(@NonNull final JSONObject files) {
+        this.files = files;
+    }
+
+    /**
+     * @return the expected lowercase hex SHA-256 of {@code fileName}, or null if the manifest
+     * does not list it.
+     */
+    @Nullable
+    public String sha256Of(@NonNull final String fileName) {
+        final JSONObject entry = files.optJSONObject(fileName);
+        if (entry == null) {
+            return null;
+        }
+        final String sha256 = entry.optString("sha256", "");
+        return sha256.isEmpty() ? null : sha256.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Fetch and verify the manifest. Blocks the calling thread.
+     *
+     * @param publicKey base64 X.509 EC public key; empty or null means signatures are not required.
+     * @return the manifest, {@link #EMPTY} if none is published and none is required, or null if
+     * the update must be rejected.
+     */
+    @Nullable
+    public static ChoicelyBundleManifest fetch(@NonNull final String manifestUrl, @Nullable final String publicKey) {
+        final boolean signed = !TextUtils.isEmpty(publicKey);
+        final Request req = new Request.Builder().url(manifestUrl).get().build();
+        try (Response response = ChoicelyRemoteBundle.HTTP.newCall(req).execute()) {
+            if (response.code() == HTTP_NOT_FOUND && !signed) {
+                return EMPTY;
+            }
+            if (!response.isSuccessful()) {
+                QLog.e(TAG, "Bundle manifest failed: HTTP " + response.code());
+                return null;
+            }
+            final JSONObject envelope = new JSONObject(response.body().string());
+            final byte[] payload = Base64.decode(envelope.getString("payload"), Base64.DEFAULT);
+            if (signed) {
+                final byte[] signature = Base64.decode(envelope.optString("signature", ""), Base64.DEFAULT);
+                if (!verify(payload, signature, publicKey)) {
+                    QLog.e(TAG, "Bundle manifest failed: bad signature");
+                    return null;
+                }
+            }
+            final JSONObject json = new JSONObject(new String(payload, StandardCharsets.UTF_8));
+            final JSONObject files = json.optJSONObject("files");
+            return new ChoicelyBundleManifest(files != null ? files : new JSONObject());
+        } catch (Exception e) {
+            QLog.e(e, TAG, "Bundle manifest failed");
+            return null;
+        }
+    }
+
+    private static boolean verify(@NonNull final byte[] payload,
+                                  @NonNull final byte[] signature,
+                                  @NonNull final String publicKey) throws Exception {
+        final PublicKey key = KeyFactory.getInstance("EC")
+                .generatePublic(new X509EncodedKeySpec(Base64.decode(publicKey, Base64.DEFAULT)));
+        final Signature verifier = Signature.getInstance(SIGNATURE_ALGORITHM);
+        verifier.initVerify(key);
+        verifier.update(payload);
+        return verifier.verify(signature);
+    }
+}
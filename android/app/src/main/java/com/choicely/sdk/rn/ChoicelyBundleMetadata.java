@@ -0,0 +1,130 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sidecar metadata kept next to a committed bundle ({@code <bundle>.meta.json}).
+ * <p>
+ * Records where the bundle came from and the HTTP validators that came with it, so the next
+ * update check can be a conditional GET instead of a full download.
+ */
+@SuppressWarnings("ResultOfMethodCallIgnored")
+public final class ChoicelyBundleMetadata {
+    private static final String SIDECAR_SUFFIX = ".meta.json";
+    private static final String KEY_URL = "url";
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_LAST_MODIFIED = "last_modified";
+    private static final String KEY_LENGTH = "length";
+    private static final String KEY_SHA256 = "sha256";
+
+    @Nullable
+    public final String url;
+    @Nullable
+    public final String etag;
+    @Nullable
+    public final String lastModified;
+    public final long length;
+    @Nullable
+    public final String sha256;
+
+    public ChoicelyBundleMetadata(@Nullable final String url,
+                                  @Nullable final String etag,
+                                  @Nullable final String lastModified,
+                                  final long length,
+                                  @Nullable final String sha256) {
+        this.url = url;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.sha256 = sha256;
+    }
+
+    /**
+     * @return true if this metadata still describes {@code bundleFile} as it is on disk.
+     */
+    public boolean describes(@NonNull final File bundleFile) {
+        return length > 0 && bundleFile.isFile() && bundleFile.length() == length;
+    }
+
+    /**
+     * @return true if a conditional request for {@code requestUrl} can be made from this metadata.
+     */
+    public boolean canRevalidate(@NonNull final String requestUrl) {
+        return requestUrl.equals(url) && (etag != null || lastModified != null);
+    }
+
+    @NonNull
+    public static File sidecarOf(@NonNull final File bundleFile) {
+        return new File(bundleFile.getParentFile(), bundleFile.getName() + SIDECAR_SUFFIX);
+    }
+
+    @Nullable
+    public static ChoicelyBundleMetadata read(@NonNull final File bundleFile) {
+        final File sidecar = sidecarOf(bundleFile);
+        if (!sidecar.isFile()) {
+            return null;
+        }
+        try {
+            final JSONObject json = new JSONObject(
+                    new String(ChoicelyFiles.readBytes(sidecar), StandardCharsets.UTF_8)
+            );
+            return new ChoicelyBundleMetadata(
+                    optString(json, KEY_URL),
+                    optString(json, KEY_ETAG),
+                    optString(json, KEY_LAST_MODIFIED),
+                    json.optLong(KEY_LENGTH, 0),
+                    optString(json, KEY_SHA256)
+            );
+        } catch (IOException | JSONException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the sidecar for {@code bundleFile} via temp file + rename.
+     *
+     * @return true if the sidecar was replaced.
+     */
+    public boolean write(@NonNull final File bundleFile) {
+        try {
+            final JSONObject json = new JSONObject();
+            json.putOpt(KEY_URL, url);
+            json.putOpt(KEY_ETAG, etag);
+            json.putOpt(KEY_LAST_MODIFIED, lastModified);
+            json.put(KEY_LENGTH, length);
+            json.putOpt(KEY_SHA256, sha256);
+            ChoicelyFiles.writeAtomically(sidecarOf(bundleFile), json.toString().getBytes(StandardCharsets.UTF_8));
+            return true;
+        } catch (IOException | JSONException e) {
+            return false;
+        }
+    }
+
+    public static void delete(@NonNull final File bundleFile) {
+        sidecarOf(bundleFile).delete();
+    }
+
+    @NonNull
+    static String toHex(@NonNull final byte[] bytes, final int count) {
+        final StringBuilder sb = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            sb.append(Character.forDigit((bytes[i] >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(bytes[i] & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    @Nullable
+    private static String optString(@NonNull final JSONObject json, @NonNull final String key) {
+        final String value = json.optString(key, "");
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,205 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.choicely.sdk.service.log.QLog;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import okhttp3.Call;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Applies a binary delta between two bundle versions.
+ * <p>
+ * Patch layout (big-endian):
+ * <pre>
+ *   magic        "CRNDELTA" (8 bytes)
+ *   version      u8 (= 1)
+ *   sourceLength i64   length of the installed bundle the patch was made against
+ *   targetLength i64   length of the resulting bundle
+ *   targetSha256 32 bytes
+ *   ops...       COPY   0x01 offset:i64 length:i32   (bytes taken from the installed bundle)
+ *                INSERT 0x02 length:i32 data[length] (bytes taken from the patch)
+ *                END    0x00
+ * </pre>
+ * The patch is consumed straight from the network (brotli/gzip transport encoding is decoded on
+ * the fly); the result is written to a temp file next to the bundle, checked against
+ * {@code targetLength}/{@code targetSha256} and renamed over the bundle only when both match.
+ */
+@SuppressWarnings("ResultOfMethodCallIgnored")
+public final class ChoicelyBundlePatch {
+    private static final String TAG = "ChoicelyBundlePatch";
+    private static final byte[] MAGIC = {'C', 'R', 'N', 'D', 'E', 'L', 'T', 'A'};
+    private static final int FORMAT_VERSION = 1;
+    private static final int OP_END = 0x00;
+    private static final int OP_COPY = 0x01;
+    private static final int OP_INSERT = 0x02;
+    private static final int HTTP_NOT_FOUND = 404;
+
+    private ChoicelyBundlePatch() {
+    }
+
+    /**
+     * Fetch the patch at {@code patchUrl} and apply it to {@code job.destFile} in place.
+     * Blocks the calling thread; must run inside a {@link ChoicelyBundleDownloads} task so a
+     * newer version can abort it.
+     *
+     * @param expectedSha256 lowercase hex SHA-256 the result must have (e.g. from
+     *                       {@link ChoicelyBundleManifest}), or null to trust the patch header.
+     *
+     * @return true if the patched bundle was verified and committed; false if no patch exists or
+     * anything went wrong, in which case {@code bundleFile} is left untouched.
+     */
+    public static boolean apply(@NonNull final ChoicelyBundleDownloads.Job job,
+                                @NonNull final String patchUrl,
+                                @Nullable final String expectedSha256) {
+        final File bundleFile = job.destFile;
+        if (!bundleFile.isFile() || !bundleFile.canRead()) {
+            return false;
+        }
+        final File tmp = new File(bundleFile.getParentFile(), bundleFile.getName()
+                + "." + Integer.toHexString(ThreadLocalRandom.current().nextInt()) + ".patched.tmp");
+        final Request req = new Request.Builder()
+                .url(patchUrl)
+                .get()
+                .header("Accept-Encoding", ChoicelyRemoteBundle.ACCEPT_ENCODING)
+                .build();
+        final Call call = ChoicelyRemoteBundle.HTTP.newCall(req);
+        job.attach(call);
+        try (Response response = call.execute()) {
+            if (response.code() == HTTP_NOT_FOUND) {
+                return false;
+            }
+            if (!response.isSuccessful()) {
+                QLog.e(TAG, "Bundle patch failed: HTTP " + response.code());
+                return false;
+            }
+            final ChoicelyBundleMetadata patched;
+            try (final InputStream in = ChoicelyRemoteBundle.decodedStream(response)) {
+                patched = applyTo(in, bundleFile, tmp);
+            }
+            if (patched == null || (expectedSha256 != null && !expectedSha256.equals(patched.sha256))) {
+                tmp.delete();
+                return false;
+            }
+            final boolean committed = job.commit(() -> {
+                // The old validators describe the old bundle; drop them before the swap.
+                ChoicelyBundleMetadata.delete(bundleFile);
+                if (!tmp.renameTo(bundleFile)) {
+                    QLog.e(TAG, "Bundle patch failed: rename failed " + tmp + " -> " + bundleFile);
+                    return false;
+                }
+                return true;
+            });
+            if (!committed) {
+                tmp.delete();
+                return false;
+            }
+            patched.write(bundleFile);
+            return true;
+        } catch (Exception e) {
+            if (!job.isCancelled()) {
+                QLog.e(e, TAG, "Bundle patch failed");
+            }
+            tmp.delete();
+            return false;
+        }
+    }
+
+    /**
+     * @return metadata (length and digest) of the verified result, or null if the patch was rejected.
+     */
+    @Nullable
+    private static ChoicelyBundleMetadata applyTo(@NonNull final InputStream patchStream,
+                                                  @NonNull final File source,
+                                                  @NonNull final File target) throws Exception {
+        final DataInputStream patch = new DataInputStream(new BufferedInputStream(patchStream, 64 * 1024));
+        final byte[] magic = new byte[MAGIC.length];
+        patch.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC) || patch.readUnsignedByte() != FORMAT_VERSION) {
+            QLog.e(TAG, "Bundle patch failed: unknown patch format");
+            return null;
+        }
+        final long sourceLength = patch.readLong();
+        final long targetLength = patch.readLong();
+        final byte[] targetSha256 = new byte[32];
+        patch.readFully(targetSha256);
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        final byte[] buf = new byte[64 * 1024];
+        long written = 0;
+        try (final RandomAccessFile src = new RandomAccessFile(source, "r");
+             final FileOutputStream out = new FileOutputStream(target, false)) {
+            if (src.length() != sourceLength) {
+                QLog.e(TAG, "Bundle patch failed: patch does not match installed bundle");
+                return null;
+            }
+            while (true) {
+                final int op = patch.readUnsignedByte();
+                if (op == OP_END) {
+                    break;
+                }
+                if (op == OP_COPY) {
+                    final long offset = patch.readLong();
+                    int remaining = patch.readInt();
+                    if (offset < 0 || remaining < 0 || offset + remaining > sourceLength) {
+                        QLog.e(TAG, "Bundle patch failed: copy out of range");
+                        return null;
+                    }
+                    src.seek(offset);
+                    while (remaining > 0) {
+                        final int n = src.read(buf, 0, Math.min(buf.length, remaining));
+                        if (n < 0) {
+                            throw new EOFException("Installed bundle truncated");
+                        }
+                        out.write(buf, 0, n);
+                        digest.update(buf, 0, n);
+                        remaining -= n;
+                        written += n;
+                    }
+                } else if (op == OP_INSERT) {
+                    int remaining = patch.readInt();
+                    if (remaining < 0) {
+                        QLog.e(TAG, "Bundle patch failed: negative insert");
+                        return null;
+                    }
+                    while (remaining > 0) {
+                        final int n = patch.read(buf, 0, Math.min(buf.length, remaining));
+                        if (n < 0) {
+                            throw new EOFException("Patch truncated");
+                        }
+                        out.write(buf, 0, n);
+                        digest.update(buf, 0, n);
+                        remaining -= n;
+                        written += n;
+                    }
+                } else {
+                    QLog.e(TAG, "Bundle patch failed: unknown op " + op);
+                    return null;
+                }
+                if (written > targetLength) {
+                    QLog.e(TAG, "Bundle patch failed: output exceeds target length");
+                    return null;
+                }
+            }
+            out.getFD().sync();
+        }
+        final byte[] actualSha256 = digest.digest();
+        if (written != targetLength || !MessageDigest.isEqual(actualSha256, targetSha256)) {
+            QLog.e(TAG, "Bundle patch failed: patched bundle does not match expected digest");
+            return null;
+        }
+        return new ChoicelyBundleMetadata(null, null, null, written, ChoicelyBundleMetadata.toHex(actualSha256, 32));
+    }
+}
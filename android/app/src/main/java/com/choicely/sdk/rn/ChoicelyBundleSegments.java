@@ -0,0 +1,225 @@
+package com.choicely.sdk.rn;
+
+import android.content.Context;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.choicely.sdk.service.log.QLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * Per-component bundle segments for a segmented build (see {@code rn/dev/segments.js}).
+ * <p>
+ * The base bundle leaves out the component modules; each component's modules ship as a separate
+ * segment that the base evaluates on first render of that component. Segments must come from the
+ * same build as the base bundle running them, so they are looked up by the store version of that
+ * base and cached under {@link ChoicelyRNHost#getSegmentsDir()}{@code /<version>/<name>.bundle}.
+ * A base bundle served from APK assets reads its segments from {@code assets/segments/}.
+ * <p>
+ * During a hot swap the old and the new host fetch segments for their own versions side by side;
+ * version directories are only pruned by {@link #gc()}, for versions the store no longer pins.
+ */
+@SuppressWarnings("ResultOfMethodCallIgnored")
+public final class ChoicelyBundleSegments {
+    private static final String TAG = "ChoicelyBundleSegments";
+    private static final String ASSET_PREFIX = "assets://";
+    private static final String SEGMENTS_ASSET_DIR = "segments/";
+    private static final String SEGMENT_SUFFIX = ".bundle";
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_-]+");
+
+    @Nullable
+    private static volatile ChoicelyBundleSegments instance;
+
+    @NonNull
+    private final ChoicelyRNApplication app;
+    private final boolean enabled;
+
+    private ChoicelyBundleSegments(@NonNull final ChoicelyRNApplication app) {
+        this.app = app;
+        this.enabled = Boolean.parseBoolean(
+                ChoicelyRNConfig.loadValue("rn_bundle_segments", R.string.choicely_rn_bundle_segments, app).trim()
+        );
+    }
+
+    @NonNull
+    public static ChoicelyBundleSegments get(@NonNull final Context context) {
+        ChoicelyBundleSegments segments = instance;
+        if (segments == null) {
+            synchronized (ChoicelyBundleSegments.class) {
+                segments = instance;
+                if (segments == null) {
+                    segments = new ChoicelyBundleSegments((ChoicelyRNApplication) context.getApplicationContext());
+                    instance = segments;
+                }
+            }
+        }
+        return segments;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts fetching the segment of {@code componentName} for the bundle the next surface will
+     * run. Completes right away when segments are disabled or the segment is already cached.
+     *
+     * @return future completing with true once the segment is on disk.
+     */
+    @NonNull
+    public CompletableFuture<Boolean> prefetch(@NonNull final String componentName) {
+        return prefetch(app.getReactNativeHost().getJSBundleFile(), componentName);
+    }
+
+    @NonNull
+    CompletableFuture<Boolean> prefetch(@NonNull final String basePath, @NonNull final String componentName) {
+        if (!enabled || !NAME_PATTERN.matcher(componentName).matches() || basePath.startsWith(ASSET_PREFIX)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        // The store lookup and file checks run on the bundle state thread, not the caller's
+        // (MyContentFactory prefetches on the main thread).
+        return CompletableFuture.supplyAsync(
+                () -> startFetch(basePath, componentName),
+                ChoicelyRNConfig.getBundleStateExecutor()
+        ).thenCompose(fetch -> fetch);
+    }
+
+    @WorkerThread
+    @NonNull
+    private CompletableFuture<Boolean> startFetch(@NonNull final String basePath, @NonNull final String componentName) {
+        final ChoicelyRNHost host = app.getReactNativeHost();
+        final String version = host.getBundleStore().versionOf(host.getBundleAssetName(), new File(basePath));
+        if (version == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        final File versionDir = new File(host.getSegmentsDir(), version);
+        final File segmentFile = new File(versionDir, componentName + SEGMENT_SUFFIX);
+        if (segmentFile.isFile() && segmentFile.length() > 0) {
+            return CompletableFuture.completedFuture(true);
+        }
+        final String platform = app.getString(R.string.choicely_rn_platform);
+        final String segmentUrl = app.getString(
+                R.string.choicely_rn_segment_url,
+                host.getAppKey(),
+                platform,
+                version,
+                componentName
+        );
+        final String manifestKey = ChoicelyRNConfig.loadValue(
+                "rn_manifest_public_key",
+                R.string.choicely_rn_manifest_public_key,
+                app
+        );
+        return ChoicelyBundleDownloads.get().submit(segmentUrl, segmentFile, job -> {
+            if (!versionDir.isDirectory() && !versionDir.mkdirs()) {
+                return false;
+            }
+            // Only a signed manifest adds anything over TLS here; skip the extra round trip otherwise.
+            String expectedSha256 = null;
+            if (TextUtils.getTrimmedLength(manifestKey) > 0) {
+                final ChoicelyBundleManifest manifest = ChoicelyBundleManifest.fetch(
+                        app.getString(R.string.choicely_rn_bundle_manifest_url, host.getAppKey(), platform, version),
+                        manifestKey
+                );
+                if (manifest == null) {
+                    return false;
+                }
+                expectedSha256 = manifest.sha256Of(SEGMENTS_ASSET_DIR + componentName + SEGMENT_SUFFIX);
+            }
+            return ChoicelyRemoteBundle.fetch(job, expectedSha256);
+        });
+    }
+
+    /**
+     * Source of the segment of {@code componentName} for the base bundle at {@code basePath}.
+     * Completes once a pending download has finished, on the download thread, or right away
+     * when the segment is already on disk; nothing here waits for the network.
+     *
+     * @return future completing with the segment source, or null if segments are disabled or it
+     * could not be fetched.
+     */
+    @NonNull
+    CompletableFuture<String> load(@NonNull final String basePath, @NonNull final String componentName) {
+        if (!enabled || !NAME_PATTERN.matcher(componentName).matches()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (basePath.startsWith(ASSET_PREFIX)) {
+            return CompletableFuture.completedFuture(readAsset(SEGMENTS_ASSET_DIR + componentName + SEGMENT_SUFFIX));
+        }
+        return prefetch(basePath, componentName)
+                .thenApply(ok -> ok ? readSegmentFile(basePath, componentName) : null)
+                .exceptionally(e -> {
+                    QLog.e(e, TAG, "Bundle segment unavailable: " + componentName);
+                    return null;
+                });
+    }
+
+    @Nullable
+    @WorkerThread
+    private String readSegmentFile(@NonNull final String basePath, @NonNull final String componentName) {
+        final ChoicelyRNHost host = app.getReactNativeHost();
+        final String version = host.getBundleStore().versionOf(host.getBundleAssetName(), new File(basePath));
+        if (version == null) {
+            return null;
+        }
+        final File segmentFile = new File(new File(host.getSegmentsDir(), version), componentName + SEGMENT_SUFFIX);
+        try {
+            return new String(ChoicelyFiles.readBytes(segmentFile), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            QLog.e(e, TAG, "Bundle segment unreadable: " + segmentFile);
+            return null;
+        }
+    }
+
+    @Nullable
+    private String readAsset(@NonNull final String assetName) {
+        try (final InputStream in = app.getAssets().open(assetName)) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buf = new byte[16 * 1024];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                out.write(buf, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Removes the cached segments of every base version the bundle store no longer pins (current,
+     * previous or staged), so a host still running the previous bundle keeps its segments.
+     */
+    @WorkerThread
+    public void gc() {
+        final ChoicelyRNHost host = app.getReactNativeHost();
+        final Set<String> keep = host.getBundleStore().pinnedVersions(host.getBundleAssetName());
+        final File[] versionDirs = host.getSegmentsDir().listFiles();
+        if (versionDirs == null) {
+            return;
+        }
+        for (final File dir : versionDirs) {
+            if (keep.contains(dir.getName())) {
+                continue;
+            }
+            final File[] files = dir.listFiles();
+            if (files != null) {
+                for (final File f : files) {
+                    f.delete();
+                }
+            }
+            dir.delete();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.choicely.sdk.service.log.QLog;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Installed and scheduled bundle versions for one app key, kept in a small append-only journal
+ * next to the {@link ChoicelyBundleStore} instead of the app's default SharedPreferences.
+ * <p>
+ * Each change is one line, appended with a single write and fsynced:
+ * <pre>
+ *   C &lt;tab&gt; version &lt;tab&gt; sha256 &lt;tab&gt; path &lt;tab&gt; crc32    installed bundle
+ *   S &lt;tab&gt; version &lt;tab&gt; crc32                             scheduled download
+ * </pre>
+ * Replay is last-record-wins; a line with a bad checksum (torn by a crash mid-append) is skipped,
+ * so a record is either fully there or not at all. The journal is compacted via temp file + rename
+ * once it holds {@link #MAX_RECORDS} records, which keeps the lazy first load constant-time.
+ */
+public final class ChoicelyBundleState {
+    private static final String TAG = "ChoicelyBundleState";
+    private static final String HEADER = "# choicely bundle state v1";
+    private static final String TYPE_CURRENT = "C";
+    private static final String TYPE_SCHEDULED = "S";
+    private static final char SEPARATOR = '\t';
+    @VisibleForTesting
+    static final int MAX_RECORDS = 32;
+
+    /**
+     * An installed bundle: version name, SHA-256 of its store object and the object's path.
+     */
+    public static final class Installed {
+        @NonNull
+        public final String version;
+        @NonNull
+        public final String sha256;
+        @NonNull
+        public final String path;
+
+        Installed(@NonNull final String version, @NonNull final String sha256, @NonNull final String path) {
+            this.version = version;
+            this.sha256 = sha256;
+            this.path = path;
+        }
+    }
+
+    @NonNull
+    private final File file;
+
+    private boolean loaded;
+    private int records;
+    /**
+     * Written under the lock; also read without it by {@link #peekInstalled()}.
+     */
+    @Nullable
+    private volatile Installed installed;
+    @NonNull
+    private String scheduledVersion = "";
+
+    public ChoicelyBundleState(@NonNull final File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return false until the first record or {@link #initialize} has been written.
+     */
+    public synchronized boolean exists() {
+        return file.isFile();
+    }
+
+    @Nullable
+    public synchronized Installed getInstalled() {
+        load();
+        return installed;
+    }
+
+    /**
+     * Lock-free read that never touches the file: the installed bundle as of the last load or
+     * write, or null if the journal has not been loaded yet.
+     */
+    @Nullable
+    public Installed peekInstalled() {
+        return installed;
+    }
+
+    /**
+     * @return the version whose download is scheduled, or "".
+     */
+    @NonNull
+    public synchronized String getScheduledVersion() {
+        load();
+        return scheduledVersion;
+    }
+
+    /**
+     * Records {@code object} (a {@link ChoicelyBundleStore} object) as the installed {@code version}.
+     *
+     * @return false if the record could not be written; the previous state is then kept.
+     */
+    public synchronized boolean setInstalled(@NonNull final String version, @NonNull final File object) {
+        load();
+        final Installed previous = installed;
+        installed = new Installed(version, object.getName(), object.getAbsolutePath());
+        if (write(currentRecord(installed))) {
+            return true;
+        }
+        installed = previous;
+        return false;
+    }
+
+    public synchronized boolean setScheduledVersion(@NonNull final String version) {
+        load();
+        if (version.equals(scheduledVersion)) {
+            return true;
+        }
+        final String previous = scheduledVersion;
+        scheduledVersion = version;
+        if (write(record(TYPE_SCHEDULED, version))) {
+            return true;
+        }
+        scheduledVersion = previous;
+        return false;
+    }
+
+    /**
+     * Creates the journal with the given state in one atomic write, e.g. when importing state kept
+     * elsewhere before. No-op if the journal already exists.
+     */
+    public synchronized void initialize(@Nullable final String version,
+                                        @Nullable final File object,
+                                        @Nullable final String scheduled) {
+        if (file.isFile()) {
+            return;
+        }
+        installed = version != null && !version.isEmpty() && object != null
+                ? new Installed(version, object.getName(), object.getAbsolutePath())
+                : null;
+        scheduledVersion = scheduled != null ? scheduled : "";
+        loaded = true;
+        compact();
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.isFile()) {
+            return;
+        }
+        final String text;
+        try {
+            text = new String(ChoicelyFiles.readBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            QLog.e(e, TAG, "Bundle state unreadable: " + file);
+            return;
+        }
+        // A torn tail would swallow the next appended record, so rewrite before appending again.
+        boolean damaged = !text.isEmpty() && !text.endsWith("\n");
+        for (final String line : text.split("\n")) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            final String[] fields = parse(line);
+            if (fields == null) {
+                damaged = true;
+                continue;
+            }
+            records++;
+            if (TYPE_CURRENT.equals(fields[0]) && fields.length == 4) {
+                installed = fields[1].isEmpty() ? null : new Installed(fields[1], fields[2], fields[3]);
+            } else if (TYPE_SCHEDULED.equals(fields[0]) && fields.length == 2) {
+                scheduledVersion = fields[1];
+            }
+        }
+        if (damaged) {
+            records = MAX_RECORDS;
+        }
+    }
+
+    /**
+     * Persists {@code record}, whose value the in-memory state already holds: appended, or the whole
+     * state rewritten when the journal is new or full.
+     */
+    private boolean write(@NonNull final String record) {
+        if (!file.isFile() || records + 1 >= MAX_RECORDS) {
+            return compact();
+        }
+        try (final FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(record.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+            records++;
+            return true;
+        } catch (IOException e) {
+            QLog.e(e, TAG, "Bundle state append failed: " + file);
+            return false;
+        }
+    }
+
+    private boolean compact() {
+        final StringBuilder sb = new StringBuilder(HEADER).append('\n');
+        int count = 0;
+        if (installed != null) {
+            sb.append(currentRecord(installed));
+            count++;
+        }
+        if (!scheduledVersion.isEmpty()) {
+            sb.append(record(TYPE_SCHEDULED, scheduledVersion));
+            count++;
+        }
+        try {
+            final File parent = file.getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Could not create " + parent);
+            }
+            ChoicelyFiles.writeAtomically(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+            records = count;
+            return true;
+        } catch (IOException e) {
+            QLog.e(e, TAG, "Bundle state write failed: " + file);
+            return false;
+        }
+    }
+
+    @NonNull
+    private static String currentRecord(@NonNull final Installed installed) {
+        return record(TYPE_CURRENT, installed.version, installed.sha256, installed.path);
+    }
+
+    @NonNull
+    private static String record(@NonNull final String... fields) {
+        final StringBuilder sb = new StringBuilder();
+        for (final String field : fields) {
+            if (field.indexOf(SEPARATOR) >= 0 || field.indexOf('\n') >= 0) {
+                throw new IllegalArgumentException("Bundle state field contains a separator: " + field);
+            }
+            sb.append(field).append(SEPARATOR);
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        return sb.append(Long.toHexString(crc.getValue())).append('\n').toString();
+    }
+
+    /**
+     * @return the fields of {@code line} without the checksum, or null if the checksum is wrong.
+     */
+    @Nullable
+    private static String[] parse(@NonNull final String line) {
+        final int crcStart = line.lastIndexOf(SEPARATOR) + 1;
+        if (crcStart <= 0) {
+            return null;
+        }
+        final String body = line.substring(0, crcStart);
+        final CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        if (!Long.toHexString(crc.getValue()).equals(line.substring(crcStart))) {
+            return null;
+        }
+        return body.substring(0, body.length() - 1).split(String.valueOf(SEPARATOR), -1);
+    }
+}
@@ -0,0 +1,557 @@
+package com.choicely.sdk.rn;
+
+import android.system.ErrnoException;
+import android.system.Os;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.choicely.sdk.service.log.QLog;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content-addressed store of bundle versions for one app key.
+ * <p>
+ * Layout under {@code files/<appKey>/rn/bundles}:
+ * <pre>
+ *   objects/&lt;sha256&gt;   immutable bundle bodies, shared by every version with the same bytes
+ *   index.json          per bundle name: current/previous digest, staged version and
+ *                       version -&gt; digest; per object: size and last-used time
+ * </pre>
+ * The index is only ever replaced via temp file + rename, so switching the current bundle is one
+ * atomic pointer swap. The previous version stays on disk for instant rollback until
+ * {@link #gc()} evicts it by age or total size (least recently used first). Current, previous and
+ * staged objects are never evicted.
+ * <p>
+ * Background updates {@link #stage} a version instead of committing it, and {@link #activateStaged}
+ * makes it current: at the next cold start, before any React host exists, or right away when
+ * {@code rn_bundle_hot_swap} is on. A hot swap never changes the bundle under a running host:
+ * {@link Listener}s hear about the new current object, and the app builds a new host for it that
+ * serves surfaces from the next navigation on (see {@link ChoicelyReactHostRegistry}), while
+ * existing surfaces keep the host and bundle they started with.
+ */
+@SuppressWarnings("ResultOfMethodCallIgnored")
+public final class ChoicelyBundleStore {
+    private static final String TAG = "ChoicelyBundleStore";
+    private static final String INDEX_FILE = "index.json";
+    private static final String OBJECTS_DIR = "objects";
+    private static final String KEY_BUNDLES = "bundles";
+    private static final String KEY_OBJECTS = "objects";
+    private static final String KEY_CURRENT = "current";
+    private static final String KEY_PREVIOUS = "previous";
+    private static final String KEY_STAGED = "staged";
+    private static final String KEY_VERSIONS = "versions";
+    private static final String KEY_SIZE = "size";
+    private static final String KEY_LAST_USED = "last_used";
+
+    private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final long DEFAULT_MAX_AGE_MS = TimeUnit.DAYS.toMillis(30);
+
+    @NonNull
+    private final File root;
+    @NonNull
+    private final File objectsDir;
+    @NonNull
+    private final File indexFile;
+    private final long maxBytes;
+    private final long maxAgeMs;
+
+    @Nullable
+    private JSONObject index;
+    /**
+     * Bundle name -> current object file. Replaced wholesale after every index change so readers
+     * never need the lock.
+     */
+    @NonNull
+    private volatile Map<String, File> currentFiles = Collections.emptyMap();
+    private volatile boolean loaded;
+    @NonNull
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public ChoicelyBundleStore(@NonNull final File root) {
+        this(root, DEFAULT_MAX_BYTES, DEFAULT_MAX_AGE_MS);
+    }
+
+    public ChoicelyBundleStore(@NonNull final File root, final long maxBytes, final long maxAgeMs) {
+        this.root = root;
+        this.objectsDir = new File(root, OBJECTS_DIR);
+        this.indexFile = new File(root, INDEX_FILE);
+        this.maxBytes = maxBytes;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Notified (on the thread that changed the index, under the store lock) whenever the current
+     * object of a bundle changes. Keep callbacks short.
+     */
+    public interface Listener {
+        void onCurrentChanged(@NonNull String bundleName, @NonNull File current);
+    }
+
+    public void addListener(@NonNull final Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NonNull final Listener listener) {
+        listeners.remove(listener);
+    }
+
+    @NonNull
+    public File getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the committed object the "current" pointer of {@code bundleName} refers to, or null.
+     */
+    @Nullable
+    public File currentFile(@NonNull final String bundleName) {
+        if (!loaded) {
+            synchronized (this) {
+                loadIndex();
+            }
+        }
+        return currentFiles.get(bundleName);
+    }
+
+    /**
+     * @return the stored object for {@code version} of {@code bundleName}, or null if evicted/unknown.
+     */
+    @Nullable
+    public synchronized File fileForVersion(@NonNull final String bundleName, @NonNull final String version) {
+        final JSONObject bundles = loadIndex().optJSONObject(KEY_BUNDLES);
+        final JSONObject bundle = bundles != null ? bundles.optJSONObject(bundleName) : null;
+        final JSONObject versions = bundle != null ? bundle.optJSONObject(KEY_VERSIONS) : null;
+        final String digest = versions != null ? versions.optString(version, "") : "";
+        if (digest.isEmpty()) {
+            return null;
+        }
+        final File object = objectFile(digest);
+        return object.isFile() ? object : null;
+    }
+
+    /**
+     * @return a version of {@code bundleName} stored as {@code object}, or null if {@code object} is
+     * not one of this store's objects.
+     */
+    @Nullable
+    public synchronized String versionOf(@NonNull final String bundleName, @NonNull final File object) {
+        if (!objectsDir.equals(object.getParentFile())) {
+            return null;
+        }
+        final JSONObject bundles = loadIndex().optJSONObject(KEY_BUNDLES);
+        final JSONObject bundle = bundles != null ? bundles.optJSONObject(bundleName) : null;
+        final JSONObject versions = bundle != null ? bundle.optJSONObject(KEY_VERSIONS) : null;
+        if (versions == null) {
+            return null;
+        }
+        final String digest = object.getName();
+        for (Iterator<String> it = versions.keys(); it.hasNext(); ) {
+            final String version = it.next();
+            if (digest.equals(versions.optString(version, ""))) {
+                return version;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the bundle at {@code source} to the store as {@code version} of {@code bundleName}
+     * and makes it current. The source file itself is kept (hard-linked where possible) so it can
+     * serve as the base for conditional requests and delta patches.
+     *
+     * @return the committed object, or null on failure (the current pointer is then unchanged).
+     */
+    @WorkerThread
+    @Nullable
+    public synchronized File commit(@NonNull final String bundleName,
+                                    @NonNull final String version,
+                                    @NonNull final File source) {
+        return put(bundleName, version, source, true);
+    }
+
+    /**
+     * Like {@link #commit} but leaves the current pointer alone and records {@code version} as
+     * staged, to be made current by {@link #activateStaged}.
+     *
+     * @return the stored object, or null on failure.
+     */
+    @WorkerThread
+    @Nullable
+    public synchronized File stage(@NonNull final String bundleName,
+                                   @NonNull final String version,
+                                   @NonNull final File source) {
+        return put(bundleName, version, source, false);
+    }
+
+    /**
+     * Stages a version that is already stored, without downloading.
+     *
+     * @return true if {@code version} is stored and now staged (or already current).
+     */
+    @WorkerThread
+    public synchronized boolean stageStored(@NonNull final String bundleName, @NonNull final String version) {
+        final File object = fileForVersion(bundleName, version);
+        if (object == null) {
+            return false;
+        }
+        try {
+            final JSONObject next = new JSONObject(loadIndex().toString());
+            final JSONObject bundle = child(child(next, KEY_BUNDLES), bundleName);
+            if (object.getName().equals(bundle.optString(KEY_CURRENT, ""))) {
+                bundle.remove(KEY_STAGED);
+            } else {
+                bundle.put(KEY_STAGED, version);
+            }
+            writeIndex(next);
+            return true;
+        } catch (IOException | JSONException e) {
+            QLog.e(e, TAG, "Bundle store stage failed: " + bundleName + " " + version);
+            return false;
+        }
+    }
+
+    /**
+     * @return the version waiting to be activated (at the next cold start, or right away with hot
+     * swap on), or null.
+     */
+    @Nullable
+    public synchronized String getStagedVersion(@NonNull final String bundleName) {
+        final JSONObject bundles = loadIndex().optJSONObject(KEY_BUNDLES);
+        final JSONObject bundle = bundles != null ? bundles.optJSONObject(bundleName) : null;
+        final String staged = bundle != null ? bundle.optString(KEY_STAGED, "") : "";
+        return staged.isEmpty() ? null : staged;
+    }
+
+    /**
+     * @return the versions of {@code bundleName} that {@link #gc()} never evicts: those stored as
+     * the current or previous object, and the staged version.
+     */
+    @NonNull
+    public synchronized Set<String> pinnedVersions(@NonNull final String bundleName) {
+        final Set<String> pinned = new HashSet<>();
+        final JSONObject bundles = loadIndex().optJSONObject(KEY_BUNDLES);
+        final JSONObject bundle = bundles != null ? bundles.optJSONObject(bundleName) : null;
+        if (bundle == null) {
+            return pinned;
+        }
+        final String current = bundle.optString(KEY_CURRENT, "");
+        final String previous = bundle.optString(KEY_PREVIOUS, "");
+        final JSONObject versions = bundle.optJSONObject(KEY_VERSIONS);
+        if (versions != null) {
+            for (Iterator<String> it = versions.keys(); it.hasNext(); ) {
+                final String version = it.next();
+                final String digest = versions.optString(version, "");
+                if (!digest.isEmpty() && (digest.equals(current) || digest.equals(previous))) {
+                    pinned.add(version);
+                }
+            }
+        }
+        final String staged = bundle.optString(KEY_STAGED, "");
+        if (!staged.isEmpty()) {
+            pinned.add(staged);
+        }
+        return pinned;
+    }
+
+    /**
+     * Makes the staged version current, if any. Only an index pointer swap.
+     *
+     * @return the version that became current, or null if nothing was staged.
+     */
+    @Nullable
+    public synchronized String activateStaged(@NonNull final String bundleName) {
+        final String staged = getStagedVersion(bundleName);
+        if (staged == null) {
+            return null;
+        }
+        return activate(bundleName, staged) ? staged : null;
+    }
+
+    @Nullable
+    private File put(@NonNull final String bundleName,
+                     @NonNull final String version,
+                     @NonNull final File source,
+                     final boolean makeCurrent) {
+        try {
+            final ChoicelyBundleMetadata meta = ChoicelyBundleMetadata.read(source);
+            final String digest = meta != null && meta.sha256 != null && meta.describes(source)
+                    ? meta.sha256
+                    : sha256Of(source);
+            final File object = objectFile(digest);
+            if (!object.isFile()) {
+                if (!objectsDir.isDirectory() && !objectsDir.mkdirs()) {
+                    throw new IOException("Could not create " + objectsDir);
+                }
+                linkOrCopy(source, object);
+            }
+            final JSONObject next = new JSONObject(loadIndex().toString());
+            final JSONObject bundle = child(child(next, KEY_BUNDLES), bundleName);
+            final String current = bundle.optString(KEY_CURRENT, "");
+            if (!makeCurrent && !digest.equals(current)) {
+                bundle.put(KEY_STAGED, version);
+            } else {
+                if (!current.isEmpty() && !current.equals(digest)) {
+                    bundle.put(KEY_PREVIOUS, current);
+                }
+                bundle.put(KEY_CURRENT, digest);
+                bundle.remove(KEY_STAGED);
+            }
+            child(bundle, KEY_VERSIONS).put(version, digest);
+            final JSONObject objectInfo = child(child(next, KEY_OBJECTS), digest);
+            objectInfo.put(KEY_SIZE, object.length());
+            objectInfo.put(KEY_LAST_USED, System.currentTimeMillis());
+            writeIndex(next);
+            gc();
+            return object;
+        } catch (IOException | JSONException | NoSuchAlgorithmException e) {
+            QLog.e(e, TAG, "Bundle store commit failed: " + bundleName + " " + version);
+            return null;
+        }
+    }
+
+    /**
+     * Points {@code bundleName} at an already stored {@code version} (rollback or roll-forward
+     * without downloading).
+     *
+     * @return true if the version was present and is now current.
+     */
+    @WorkerThread
+    public synchronized boolean activate(@NonNull final String bundleName, @NonNull final String version) {
+        final File object = fileForVersion(bundleName, version);
+        if (object == null) {
+            return false;
+        }
+        try {
+            final String digest = object.getName();
+            final JSONObject next = new JSONObject(loadIndex().toString());
+            final JSONObject bundle = child(child(next, KEY_BUNDLES), bundleName);
+            final String current = bundle.optString(KEY_CURRENT, "");
+            final boolean wasStaged = version.equals(bundle.optString(KEY_STAGED, ""));
+            if (digest.equals(current) && !wasStaged) {
+                return true;
+            }
+            bundle.remove(KEY_STAGED);
+            if (!current.isEmpty() && !digest.equals(current)) {
+                bundle.put(KEY_PREVIOUS, current);
+            }
+            bundle.put(KEY_CURRENT, digest);
+            child(child(next, KEY_OBJECTS), digest).put(KEY_LAST_USED, System.currentTimeMillis());
+            writeIndex(next);
+            return true;
+        } catch (IOException | JSONException e) {
+            QLog.e(e, TAG, "Bundle store activate failed: " + bundleName + " " + version);
+            return false;
+        }
+    }
+
+    /**
+     * Evicts objects older than the max age, then least recently used objects until the store fits
+     * in the max size. Current and previous objects are kept; files not in the index are removed.
+     */
+    @WorkerThread
+    public synchronized void gc() {
+        try {
+            final JSONObject next = new JSONObject(loadIndex().toString());
+            final JSONObject bundles = child(next, KEY_BUNDLES);
+            final JSONObject objects = child(next, KEY_OBJECTS);
+            final Set<String> pinned = new HashSet<>();
+            for (Iterator<String> it = bundles.keys(); it.hasNext(); ) {
+                final JSONObject bundle = bundles.optJSONObject(it.next());
+                if (bundle != null) {
+                    pinned.add(bundle.optString(KEY_CURRENT, ""));
+                    pinned.add(bundle.optString(KEY_PREVIOUS, ""));
+                    final JSONObject versions = bundle.optJSONObject(KEY_VERSIONS);
+                    if (versions != null) {
+                        pinned.add(versions.optString(bundle.optString(KEY_STAGED, ""), ""));
+                    }
+                }
+            }
+            final long now = System.currentTimeMillis();
+            final List<String> candidates = new ArrayList<>();
+            long total = 0;
+            for (Iterator<String> it = objects.keys(); it.hasNext(); ) {
+                final String digest = it.next();
+                final JSONObject info = objects.optJSONObject(digest);
+                total += info != null ? info.optLong(KEY_SIZE, 0) : 0;
+                if (!pinned.contains(digest)) {
+                    candidates.add(digest);
+                }
+            }
+            Collections.sort(candidates, (a, b) -> Long.compare(
+                    objects.optJSONObject(a).optLong(KEY_LAST_USED, 0),
+                    objects.optJSONObject(b).optLong(KEY_LAST_USED, 0)
+            ));
+            final Set<String> evicted = new HashSet<>();
+            for (String digest : candidates) {
+                final JSONObject info = objects.optJSONObject(digest);
+                final boolean expired = now - info.optLong(KEY_LAST_USED, 0) > maxAgeMs;
+                if (!expired && total <= maxBytes) {
+                    continue;
+                }
+                total -= info.optLong(KEY_SIZE, 0);
+                evicted.add(digest);
+            }
+            if (!evicted.isEmpty()) {
+                for (String digest : evicted) {
+                    objects.remove(digest);
+                }
+                for (Iterator<String> it = bundles.keys(); it.hasNext(); ) {
+                    final JSONObject bundle = bundles.optJSONObject(it.next());
+                    final JSONObject versions = bundle != null ? bundle.optJSONObject(KEY_VERSIONS) : null;
+                    if (versions == null) {
+                        continue;
+                    }
+                    final List<String> stale = new ArrayList<>();
+                    for (Iterator<String> v = versions.keys(); v.hasNext(); ) {
+                        final String version = v.next();
+                        if (evicted.contains(versions.optString(version, ""))) {
+                            stale.add(version);
+                        }
+                    }
+                    for (String version : stale) {
+                        versions.remove(version);
+                    }
+                }
+                writeIndex(next);
+            }
+            final File[] files = objectsDir.listFiles();
+            if (files != null) {
+                for (File f : files) {
+                    if (!objects.has(f.getName())) {
+                        f.delete();
+                    }
+                }
+            }
+        } catch (IOException | JSONException e) {
+            QLog.e(e, TAG, "Bundle store gc failed");
+        }
+    }
+
+    @NonNull
+    private File objectFile(@NonNull final String digest) {
+        return new File(objectsDir, digest);
+    }
+
+    @NonNull
+    private JSONObject loadIndex() {
+        if (index != null) {
+            return index;
+        }
+        JSONObject loadedIndex = null;
+        if (indexFile.isFile()) {
+            try {
+                loadedIndex = new JSONObject(new String(ChoicelyFiles.readBytes(indexFile), StandardCharsets.UTF_8));
+            } catch (IOException | JSONException e) {
+                QLog.e(e, TAG, "Bundle store index unreadable, starting empty");
+            }
+        }
+        index = loadedIndex != null ? loadedIndex : new JSONObject();
+        publish(index);
+        loaded = true;
+        return index;
+    }
+
+    private void writeIndex(@NonNull final JSONObject next) throws IOException {
+        if (!root.isDirectory() && !root.mkdirs()) {
+            throw new IOException("Could not create " + root);
+        }
+        ChoicelyFiles.writeAtomically(indexFile, next.toString().getBytes(StandardCharsets.UTF_8));
+        index = next;
+        publish(next);
+    }
+
+    private void publish(@NonNull final JSONObject snapshot) {
+        final Map<String, File> files = new HashMap<>();
+        final JSONObject bundles = snapshot.optJSONObject(KEY_BUNDLES);
+        if (bundles != null) {
+            for (Iterator<String> it = bundles.keys(); it.hasNext(); ) {
+                final String name = it.next();
+                final JSONObject bundle = bundles.optJSONObject(name);
+                final String digest = bundle != null ? bundle.optString(KEY_CURRENT, "") : "";
+                if (!digest.isEmpty()) {
+                    files.put(name, objectFile(digest));
+                }
+            }
+        }
+        final Map<String, File> previous = currentFiles;
+        currentFiles = Collections.unmodifiableMap(files);
+        if (!loaded) {
+            return;
+        }
+        for (Map.Entry<String, File> e : files.entrySet()) {
+            if (!e.getValue().equals(previous.get(e.getKey()))) {
+                for (Listener listener : listeners) {
+                    listener.onCurrentChanged(e.getKey(), e.getValue());
+                }
+            }
+        }
+    }
+
+    @NonNull
+    private static JSONObject child(@NonNull final JSONObject parent, @NonNull final String key) throws JSONException {
+        JSONObject child = parent.optJSONObject(key);
+        if (child == null) {
+            child = new JSONObject();
+            parent.put(key, child);
+        }
+        return child;
+    }
+
+    private static void linkOrCopy(@NonNull final File source, @NonNull final File target) throws IOException {
+        final File tmp = new File(target.getParentFile(), target.getName() + ".tmp");
+        tmp.delete();
+        try {
+            Os.link(source.getAbsolutePath(), tmp.getAbsolutePath());
+        } catch (ErrnoException e) {
+            try (final InputStream in = new FileInputStream(source);
+                 final FileOutputStream out = new FileOutputStream(tmp, false)) {
+                final byte[] buf = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(buf)) != -1) {
+                    out.write(buf, 0, n);
+                }
+                out.getFD().sync();
+            }
+        }
+        if (!tmp.renameTo(target)) {
+            tmp.delete();
+            throw new IOException("Rename failed " + tmp + " -> " + target);
+        }
+    }
+
+    @NonNull
+    private static String sha256Of(@NonNull final File file) throws IOException, NoSuchAlgorithmException {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (final InputStream in = new FileInputStream(file)) {
+            final byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                digest.update(buf, 0, n);
+            }
+        }
+        return ChoicelyBundleMetadata.toHex(digest.digest(), 32);
+    }
+}
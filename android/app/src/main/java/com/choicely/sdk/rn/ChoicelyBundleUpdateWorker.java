@@ -0,0 +1,112 @@
+package com.choicely.sdk.rn;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.choicely.sdk.service.log.QLog;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background download of a bundle version into the store's staged slot.
+ * <p>
+ * Runs when the network/battery/storage (and optionally idle) constraints allow, retries with
+ * exponential backoff, and survives process death. The staged version becomes current at the next
+ * cold start ({@link ChoicelyRNConfig#activateStagedBundleAsync}), or right away when
+ * {@code rn_bundle_hot_swap} is on; the result data carries {@link #KEY_STAGED_VERSION}.
+ */
+public class ChoicelyBundleUpdateWorker extends Worker {
+    private static final String TAG = "ChoicelyBundleUpdate";
+    private static final String UNIQUE_WORK_NAME = "choicely-rn-bundle-update";
+    private static final String KEY_VERSION = "version";
+    public static final String KEY_STAGED_VERSION = "staged_version";
+
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long INITIAL_BACKOFF_SECONDS = 30;
+
+    public ChoicelyBundleUpdateWorker(@NonNull final Context context, @NonNull final WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Enqueues staging of {@code versionName}.
+     *
+     * @param keepPending true to leave already pending work for the same version alone (keeps its
+     *                    backoff); otherwise pending work for an older version is replaced.
+     */
+    static void schedule(@NonNull final Context context, @NonNull final String versionName, final boolean keepPending) {
+        final boolean unmeteredOnly = Boolean.parseBoolean(ChoicelyRNConfig.loadValue(
+                "rn_prefetch_unmetered_only",
+                R.string.choicely_rn_prefetch_unmetered_only,
+                context
+        ).trim());
+        final boolean requiresIdle = Boolean.parseBoolean(ChoicelyRNConfig.loadValue(
+                "rn_prefetch_requires_idle",
+                R.string.choicely_rn_prefetch_requires_idle,
+                context
+        ).trim());
+        final Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(unmeteredOnly ? NetworkType.UNMETERED : NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .setRequiresStorageNotLow(true)
+                .setRequiresDeviceIdle(requiresIdle)
+                .build();
+        final OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ChoicelyBundleUpdateWorker.class)
+                .setConstraints(constraints)
+                .setInputData(new Data.Builder().putString(KEY_VERSION, versionName).build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, INITIAL_BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(
+                UNIQUE_WORK_NAME,
+                keepPending ? ExistingWorkPolicy.KEEP : ExistingWorkPolicy.REPLACE,
+                request
+        );
+    }
+
+    private static boolean isHotSwapEnabled(@NonNull final Context context) {
+        return Boolean.parseBoolean(
+                ChoicelyRNConfig.loadValue("rn_bundle_hot_swap", R.string.choicely_rn_bundle_hot_swap, context).trim()
+        );
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        final String versionName = getInputData().getString(KEY_VERSION);
+        if (versionName == null || versionName.isEmpty()) {
+            return Result.failure();
+        }
+        final ChoicelyRNApplication app = (ChoicelyRNApplication) getApplicationContext();
+        try {
+            if (ChoicelyRNConfig.stageBundle(versionName, app)) {
+                if (isHotSwapEnabled(app)) {
+                    // Surfaces keep their host; the new bundle's host is swapped in at the next
+                    // navigation (see ChoicelyReactHostRegistry).
+                    ChoicelyRNConfig.activateStagedBundleAsync(app).join();
+                }
+                // Old bundle versions and their segments; current, previous and staged are kept.
+                app.getReactNativeHost().getBundleStore().gc();
+                ChoicelyBundleSegments.get(app).gc();
+                return Result.success(new Data.Builder().putString(KEY_STAGED_VERSION, versionName).build());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+        if (getRunAttemptCount() + 1 >= MAX_ATTEMPTS) {
+            QLog.e(TAG, "Giving up staging bundle " + versionName + " after " + MAX_ATTEMPTS + " attempts");
+            return Result.failure();
+        }
+        return Result.retry();
+    }
+}
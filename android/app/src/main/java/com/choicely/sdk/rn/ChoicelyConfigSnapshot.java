@@ -0,0 +1,153 @@
+package com.choicely.sdk.rn;
+
+import android.content.res.AssetManager;
+import android.text.TextUtils;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.choicely.sdk.service.log.QLog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of choicely_config.json.
+ * <p>
+ * Parsed once with a streaming reader; only top-level scalar values are kept (nested objects and
+ * arrays are skipped). Blank strings and nulls count as unset. A missing or malformed file gives
+ * an empty snapshot with {@link #isValid()} false, so the failure is not retried on every lookup.
+ */
+public final class ChoicelyConfigSnapshot {
+    private static final String TAG = "ChoicelyConfigSnapshot";
+
+    static final ChoicelyConfigSnapshot EMPTY = new ChoicelyConfigSnapshot(Collections.emptyMap(), false);
+
+    /**
+     * String for JSON strings and numbers (number text as written), Boolean for JSON booleans.
+     */
+    @NonNull
+    private final Map<String, Object> values;
+    private final boolean valid;
+
+    private ChoicelyConfigSnapshot(@NonNull final Map<String, Object> values, final boolean valid) {
+        this.values = values;
+        this.valid = valid;
+    }
+
+    @NonNull
+    @WorkerThread
+    static ChoicelyConfigSnapshot read(@NonNull final AssetManager assets, @NonNull final String fileName) {
+        try (final InputStream in = assets.open(fileName);
+             final JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return new ChoicelyConfigSnapshot(Collections.unmodifiableMap(readObject(reader)), true);
+        } catch (IOException | RuntimeException e) {
+            // JsonReader reports malformed input as IOException or IllegalStateException.
+            QLog.e(e, TAG, "Reading " + fileName + " failed; using resource defaults");
+            return EMPTY;
+        }
+    }
+
+    @NonNull
+    private static Map<String, Object> readObject(@NonNull final JsonReader reader) throws IOException {
+        final Map<String, Object> values = new HashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            final JsonToken token = reader.peek();
+            switch (token) {
+                case STRING:
+                case NUMBER: {
+                    final String value = reader.nextString();
+                    if (TextUtils.getTrimmedLength(value) > 0) {
+                        values.put(name, value);
+                    }
+                    break;
+                }
+                case BOOLEAN:
+                    values.put(name, reader.nextBoolean());
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return values;
+    }
+
+    /**
+     * @return false if choicely_config.json could not be read or parsed.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return every value as {@link #getString} would return it.
+     */
+    @NonNull
+    public Map<String, String> toStringMap() {
+        final Map<String, String> strings = new HashMap<>(values.size());
+        for (final Map.Entry<String, Object> e : values.entrySet()) {
+            strings.put(e.getKey(), e.getValue().toString());
+        }
+        return strings;
+    }
+
+    public boolean has(@NonNull final String key) {
+        return values.containsKey(key);
+    }
+
+    /**
+     * @return the value as a string (numbers as written, booleans as "true"/"false"), or null if
+     * unset or blank.
+     */
+    @Nullable
+    public String getString(@NonNull final String key) {
+        final Object value = values.get(key);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Accepts JSON booleans and the strings "true"/"false" (any case).
+     */
+    public boolean getBoolean(@NonNull final String key, final boolean fallback) {
+        final Object value = values.get(key);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value != null) {
+            final String text = value.toString().trim();
+            if ("true".equalsIgnoreCase(text)) {
+                return true;
+            }
+            if ("false".equalsIgnoreCase(text)) {
+                return false;
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Accepts JSON numbers and numeric strings.
+     */
+    public long getLong(@NonNull final String key, final long fallback) {
+        final Object value = values.get(key);
+        if (value instanceof String) {
+            try {
+                return Long.parseLong(((String) value).trim());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return fallback;
+    }
+}
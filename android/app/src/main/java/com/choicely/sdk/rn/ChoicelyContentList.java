@@ -0,0 +1,92 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A content list (feed items, survey results, ...) packed for the native
+ * {@code ChoicelyContentLists} module; see {@link ChoicelyContentLists}.
+ * <p>
+ * Items are stored back to back as UTF-8 JSON text with an offset table, so a page of items is a
+ * contiguous byte range that JS parses in one go. Numeric fields named at encode time are also
+ * extracted into columns of doubles (NaN where missing) for JS to read as typed arrays.
+ */
+public final class ChoicelyContentList {
+    /**
+     * All items' JSON text, back to back.
+     */
+    @NonNull
+    final byte[] json;
+    /**
+     * Item {@code i} is {@code json[offsets[i], offsets[i + 1])}; {@code size() + 1} entries.
+     */
+    @NonNull
+    final int[] offsets;
+    @NonNull
+    final String[] numericFields;
+    /**
+     * Field-major: field {@code f} of item {@code i} is {@code columns[f * size() + i]}.
+     */
+    @NonNull
+    final double[] columns;
+
+    private ChoicelyContentList(@NonNull final byte[] json,
+                                @NonNull final int[] offsets,
+                                @NonNull final String[] numericFields,
+                                @NonNull final double[] columns) {
+        this.json = json;
+        this.offsets = offsets;
+        this.numericFields = numericFields;
+        this.columns = columns;
+    }
+
+    /**
+     * @param items         any JSON values; usually objects.
+     * @param numericFields top-level object fields to extract as number columns.
+     */
+    @NonNull
+    public static ChoicelyContentList encode(@NonNull final JSONArray items, @NonNull final String... numericFields) {
+        final int size = items.length();
+        final int[] offsets = new int[size + 1];
+        final double[] columns = new double[numericFields.length * size];
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(size * 256);
+        for (int i = 0; i < size; i++) {
+            final Object item = items.opt(i);
+            final String text = item instanceof String ? JSONObject.quote((String) item) : String.valueOf(item);
+            final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.write(bytes, 0, bytes.length);
+            offsets[i + 1] = out.size();
+            final JSONObject object = item instanceof JSONObject ? (JSONObject) item : null;
+            for (int f = 0; f < numericFields.length; f++) {
+                columns[f * size + i] = object != null ? object.optDouble(numericFields[f], Double.NaN) : Double.NaN;
+            }
+        }
+        return new ChoicelyContentList(out.toByteArray(), offsets, numericFields.clone(), columns);
+    }
+
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return items {@code [from, to)} as one JSON array; the text the native module parses into
+     * a page for JS.
+     */
+    @NonNull
+    public String pageJson(final int from, final int to) {
+        final StringBuilder sb = new StringBuilder(offsets[to] - offsets[from] + (to - from) + 2);
+        sb.append('[');
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                sb.append(',');
+            }
+            sb.append(new String(json, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8));
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,61 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import org.json.JSONArray;
+
+/**
+ * Large content lists handed to JS through the C++ {@code ChoicelyContentLists} TurboModule (see
+ * jni/choicely/ChoicelyContentLists.h and rn/src/contentLists.js) instead of a Java module
+ * returning one {@code WritableArray}.
+ * <p>
+ * Native code publishes a list once, under an id JS knows (e.g. the feed key). JS then reads it
+ * in pages, each parsed from a single JSON string, and numeric fields as {@code Float64Array}s,
+ * so nothing is converted item by item across the bridge. Lists are process-wide: every React
+ * host sees them, and republishing an id replaces the list and bumps its version.
+ */
+public final class ChoicelyContentLists {
+
+    private ChoicelyContentLists() {
+    }
+
+    /**
+     * Encodes {@code items} and replaces the list {@code listId}. Encoding is linear in the list
+     * size; call off the main thread for large lists.
+     *
+     * @return false if the native library is missing.
+     * @see ChoicelyContentList#encode
+     */
+    @WorkerThread
+    public static boolean publish(@NonNull final String listId,
+                                  @NonNull final JSONArray items,
+                                  @NonNull final String... numericFields) {
+        return publish(listId, ChoicelyContentList.encode(items, numericFields));
+    }
+
+    /**
+     * @return false if the native library is missing.
+     */
+    public static boolean publish(@NonNull final String listId, @NonNull final ChoicelyContentList list) {
+        if (!ChoicelyNativeLibrary.isAvailable()) {
+            return false;
+        }
+        nativePublish(listId, list.json, list.offsets, list.numericFields, list.columns);
+        return true;
+    }
+
+    public static void remove(@NonNull final String listId) {
+        if (ChoicelyNativeLibrary.isAvailable()) {
+            nativeRemove(listId);
+        }
+    }
+
+    private static native void nativePublish(@NonNull String listId,
+                                             @NonNull byte[] json,
+                                             @NonNull int[] offsets,
+                                             @NonNull String[] numericFields,
+                                             @NonNull double[] columns);
+
+    private static native void nativeRemove(@NonNull String listId);
+}
@@ -0,0 +1,37 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.jni.HybridData;
+import com.facebook.jni.annotations.DoNotStrip;
+import com.facebook.react.runtime.cxxreactpackage.CxxReactPackage;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * C++ TurboModules of the Choicely RN host (jni/choicely/ChoicelyCxxReactPackage.h), added to
+ * every {@link com.facebook.react.ReactHost} next to {@link ChoicelyRNPackage}. Currently
+ * {@code ChoicelyContentLists}, see {@link ChoicelyContentLists}.
+ */
+@DoNotStrip
+public final class ChoicelyCxxReactPackage extends CxxReactPackage {
+
+    private ChoicelyCxxReactPackage() {
+        super(initHybrid());
+    }
+
+    /**
+     * @return the providers to pass to {@link ChoicelyDefaultReactHost#getDefaultReactHost}; empty
+     * if the native library is missing.
+     */
+    @NonNull
+    public static List<ChoicelyDefaultReactHost.CxxReactPackageProvider> providers() {
+        if (!ChoicelyNativeLibrary.isAvailable()) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(reactContext -> new ChoicelyCxxReactPackage());
+    }
+
+    private static native HybridData initHybrid();
+}
@@ -0,0 +1,61 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Small file helpers for the bundle pipeline. {@code java.nio.file.Files} needs API 26, and
+ * minSdk is 24.
+ */
+@SuppressWarnings("ResultOfMethodCallIgnored")
+final class ChoicelyFiles {
+
+    private ChoicelyFiles() {
+    }
+
+    @NonNull
+    static byte[] readBytes(@NonNull final File file) throws IOException {
+        try (final InputStream in = new FileInputStream(file)) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.max(32, file.length()));
+            final byte[] buf = new byte[8 * 1024];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    static void writeBytes(@NonNull final File file, @NonNull final byte[] bytes) throws IOException {
+        try (final FileOutputStream out = new FileOutputStream(file, false)) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Writes {@code bytes} to a temp file next to {@code file}, syncs it and renames it over
+     * {@code file}, so readers see either the old or the new content.
+     */
+    static void writeAtomically(@NonNull final File file, @NonNull final byte[] bytes) throws IOException {
+        final File tmp = new File(file.getParentFile(), file.getName()
+                + "." + Integer.toHexString(ThreadLocalRandom.current().nextInt()) + ".tmp");
+        try (final FileOutputStream out = new FileOutputStream(tmp, false)) {
+            out.write(bytes);
+            out.getFD().sync();
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Rename failed " + tmp + " -> " + file);
+        }
+    }
+}
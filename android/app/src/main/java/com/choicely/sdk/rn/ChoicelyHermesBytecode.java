@@ -0,0 +1,144 @@
+package com.choicely.sdk.rn;
+
+import android.content.Context;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Hermes bytecode (HBC) header checks.
+ * <p>
+ * A bytecode bundle can only be run by a Hermes runtime with the same bytecode version. The
+ * runtime's version is taken from {@code rn_hermes_bytecode_version} in choicely_config.json /
+ * resources when set; otherwise from the header of the bundle shipped in the APK assets, which
+ * release builds compile with the hermesc that matches the embedded runtime.
+ * <p>
+ * Header layout (little-endian): magic u64, version u32, source hash [20], file length u32.
+ */
+public final class ChoicelyHermesBytecode {
+    /**
+     * Bytecode version could not be determined; HBC bundles are not requested.
+     */
+    public static final int UNKNOWN_VERSION = -1;
+
+    private static final long MAGIC = 0x1F1903C103BC1FC6L;
+    private static final int HEADER_LENGTH = 8 + 4 + 20 + 4;
+
+    private static volatile int runtimeVersion = Integer.MIN_VALUE;
+
+    private ChoicelyHermesBytecode() {
+    }
+
+    /**
+     * @return the bytecode version the embedded Hermes runtime accepts, or {@link #UNKNOWN_VERSION}.
+     */
+    public static int getRuntimeVersion(@NonNull final Context context, @NonNull final String bundleAssetName) {
+        int version = runtimeVersion;
+        if (version != Integer.MIN_VALUE) {
+            return version;
+        }
+        version = UNKNOWN_VERSION;
+        final String configured = ChoicelyRNConfig.loadValue(
+                "rn_hermes_bytecode_version",
+                R.string.choicely_rn_hermes_bytecode_version,
+                context
+        );
+        if (TextUtils.getTrimmedLength(configured) > 0) {
+            try {
+                version = Integer.parseInt(configured.trim());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        if (version == UNKNOWN_VERSION) {
+            try (final InputStream in = context.getAssets().open(bundleAssetName)) {
+                version = readVersion(in, -1);
+            } catch (IOException ignored) {
+            }
+        }
+        runtimeVersion = version;
+        return version;
+    }
+
+    /**
+     * @return true if {@code file} starts with the Hermes bytecode magic.
+     */
+    public static boolean isBytecode(@NonNull final File file) {
+        try (final InputStream in = new FileInputStream(file)) {
+            final byte[] header = new byte[8];
+            return readFully(in, header) && readLong(header, 0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Validates a bytecode bundle against the runtime: magic, bytecode version and the file length
+     * recorded in the header.
+     */
+    public static boolean isValid(@NonNull final File file, final int expectedVersion) {
+        if (expectedVersion == UNKNOWN_VERSION) {
+            return false;
+        }
+        try (final InputStream in = new FileInputStream(file)) {
+            return readVersion(in, file.length()) == expectedVersion;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Whether {@code file} may be handed to the runtime: plain JS always, bytecode only when its
+     * version matches. With an unknown runtime version bytecode is let through, as before.
+     */
+    public static boolean isLoadable(@NonNull final File file, final int runtimeVersion) {
+        if (!isBytecode(file)) {
+            return true;
+        }
+        return runtimeVersion == UNKNOWN_VERSION || isValid(file, runtimeVersion);
+    }
+
+    /**
+     * @param actualLength length of the whole file, or -1 to skip the length check.
+     * @return bytecode version from the header, or {@link #UNKNOWN_VERSION} if not a valid header.
+     */
+    private static int readVersion(@NonNull final InputStream in, final long actualLength) throws IOException {
+        final byte[] header = new byte[HEADER_LENGTH];
+        if (!readFully(in, header) || readLong(header, 0) != MAGIC) {
+            return UNKNOWN_VERSION;
+        }
+        final int version = readInt(header, 8);
+        final long fileLength = readInt(header, 32) & 0xFFFFFFFFL;
+        if (actualLength >= 0 && fileLength != actualLength) {
+            return UNKNOWN_VERSION;
+        }
+        return version;
+    }
+
+    private static boolean readFully(@NonNull final InputStream in, @NonNull final byte[] buf) throws IOException {
+        int off = 0;
+        while (off < buf.length) {
+            final int n = in.read(buf, off, buf.length - off);
+            if (n < 0) {
+                return false;
+            }
+            off += n;
+        }
+        return true;
+    }
+
+    private static int readInt(@NonNull final byte[] b, final int off) {
+        return (b[off] & 0xFF)
+                | (b[off + 1] & 0xFF) << 8
+                | (b[off + 2] & 0xFF) << 16
+                | (b[off + 3] & 0xFF) << 24;
+    }
+
+    private static long readLong(@NonNull final byte[] b, final int off) {
+        return (readInt(b, off) & 0xFFFFFFFFL) | ((long) readInt(b, off + 4) << 32);
+    }
+}
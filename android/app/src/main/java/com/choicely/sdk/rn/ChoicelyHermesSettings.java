@@ -0,0 +1,187 @@
+package com.choicely.sdk.rn;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONObject;
+
+/**
+ * Hermes heap and GC settings for new React hosts, see {@link ChoicelyJSRuntimeFactory}.
+ * <p>
+ * Every {@code rn_hermes_*} value is looked up, first match wins, in: the app custom data with
+ * the device tier suffix (e.g. {@code rn_hermes_max_heap_mb_low}), the app custom data,
+ * choicely_config.json with the suffix, choicely_config.json, the resource default. Remote
+ * changes apply to the next host created (next launch or bundle swap).
+ */
+public final class ChoicelyHermesSettings {
+    public static final String TIER_LOW = "low";
+    public static final String TIER_MID = "mid";
+    public static final String TIER_HIGH = "high";
+
+    /**
+     * Old generation until TTI, then young; what React Native's own Hermes factory does.
+     */
+    public static final int GC_DEFAULT = 0;
+    /**
+     * Young generation from the start: more, shorter collections.
+     */
+    public static final int GC_YOUNG = 1;
+    /**
+     * Young generation, returning unused heap to the system after every collection.
+     */
+    public static final int GC_LOW_MEMORY = 2;
+
+    private static final long MB = 1024L * 1024L;
+    /**
+     * Hermes sizes its heap with 32-bit counts.
+     */
+    private static final long MAX_HEAP_MB = 2048;
+    private static final long LOW_TIER_MAX_RAM = 3L * 1024L * MB;
+    private static final long MID_TIER_MAX_RAM = 6L * 1024L * MB;
+
+    @NonNull
+    public final String tier;
+    /**
+     * 0 keeps the Hermes default.
+     */
+    public final long initHeapBytes;
+    /**
+     * 0 keeps the Hermes default.
+     */
+    public final long maxHeapBytes;
+    public final int gcMode;
+    /**
+     * Bytes between allocation-site heap samples; 0 disables sampling. Above 0 also enables the
+     * Hermes sampling profiler.
+     */
+    public final long heapSamplingInterval;
+
+    private ChoicelyHermesSettings(@NonNull final String tier,
+                                   final long initHeapBytes,
+                                   final long maxHeapBytes,
+                                   final int gcMode,
+                                   final long heapSamplingInterval) {
+        this.tier = tier;
+        this.initHeapBytes = initHeapBytes;
+        this.maxHeapBytes = maxHeapBytes;
+        this.gcMode = gcMode;
+        this.heapSamplingInterval = heapSamplingInterval;
+    }
+
+    /**
+     * @param customData last known app custom data, if any.
+     */
+    @NonNull
+    public static ChoicelyHermesSettings load(@NonNull final Context context, @Nullable final JSONObject customData) {
+        final String tier = deviceTier(context);
+        final long initHeapMb = Math.min(MAX_HEAP_MB, parseLong(
+                value("rn_hermes_init_heap_mb", R.string.choicely_rn_hermes_init_heap_mb, tier, context, customData)));
+        final long maxHeapMb = Math.min(MAX_HEAP_MB, parseLong(
+                value("rn_hermes_max_heap_mb", R.string.choicely_rn_hermes_max_heap_mb, tier, context, customData)));
+        final int gcMode = parseGcMode(
+                value("rn_hermes_gc_mode", R.string.choicely_rn_hermes_gc_mode, tier, context, customData));
+        final long samplingInterval = parseLong(
+                value("rn_hermes_heap_sampling_interval", R.string.choicely_rn_hermes_heap_sampling_interval, tier, context, customData));
+        return new ChoicelyHermesSettings(
+                tier,
+                initHeapMb * MB,
+                maxHeapMb > 0 ? Math.max(maxHeapMb, initHeapMb) * MB : 0,
+                gcMode,
+                samplingInterval
+        );
+    }
+
+    /**
+     * @return true if nothing differs from React Native's own Hermes setup.
+     */
+    public boolean isDefault() {
+        return initHeapBytes == 0 && maxHeapBytes == 0 && gcMode == GC_DEFAULT && heapSamplingInterval == 0;
+    }
+
+    /**
+     * @return {@code rn_device_tier} if set, otherwise {@link #TIER_LOW} for low-RAM devices and
+     * under 3 GB of RAM, {@link #TIER_MID} under 6 GB, {@link #TIER_HIGH} above.
+     */
+    @NonNull
+    public static String deviceTier(@NonNull final Context context) {
+        final String configured = ChoicelyRNConfig.loadValue("rn_device_tier", R.string.choicely_rn_device_tier, context).trim();
+        if (TIER_LOW.equals(configured) || TIER_MID.equals(configured) || TIER_HIGH.equals(configured)) {
+            return configured;
+        }
+        final ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (am == null) {
+            return TIER_MID;
+        }
+        if (am.isLowRamDevice()) {
+            return TIER_LOW;
+        }
+        final ActivityManager.MemoryInfo memory = new ActivityManager.MemoryInfo();
+        am.getMemoryInfo(memory);
+        if (memory.totalMem < LOW_TIER_MAX_RAM) {
+            return TIER_LOW;
+        }
+        return memory.totalMem < MID_TIER_MAX_RAM ? TIER_MID : TIER_HIGH;
+    }
+
+    @NonNull
+    private static String value(@NonNull final String key,
+                                final int defaultResId,
+                                @NonNull final String tier,
+                                @NonNull final Context context,
+                                @Nullable final JSONObject customData) {
+        final String tiered = key + "_" + tier;
+        String value = customString(customData, tiered);
+        if (value == null) {
+            value = customString(customData, key);
+        }
+        if (value == null) {
+            value = ChoicelyRNConfig.loadFromAssets(tiered, context);
+        }
+        if (value == null) {
+            value = ChoicelyRNConfig.loadValue(key, defaultResId, context);
+        }
+        return value;
+    }
+
+    @Nullable
+    private static String customString(@Nullable final JSONObject customData, @NonNull final String key) {
+        if (customData == null) {
+            return null;
+        }
+        final String value = customData.optString(key, "");
+        return TextUtils.getTrimmedLength(value) > 0 ? value : null;
+    }
+
+    private static int parseGcMode(@NonNull final String value) {
+        switch (value.trim()) {
+            case "young":
+                return GC_YOUNG;
+            case "low_memory":
+                return GC_LOW_MEMORY;
+            default:
+                return GC_DEFAULT;
+        }
+    }
+
+    private static long parseLong(@NonNull final String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "tier=" + tier
+                + " initHeap=" + initHeapBytes / MB + "MB"
+                + " maxHeap=" + maxHeapBytes / MB + "MB"
+                + " gcMode=" + gcMode
+                + " heapSampling=" + heapSamplingInterval;
+    }
+}
@@ -0,0 +1,457 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.choicely.sdk.service.log.QLog;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Aggregated JS exceptions, deduplicated by fingerprint and kept across launches.
+ * <p>
+ * {@link #record} runs on the thread reporting the exception, usually the JS thread, and is built
+ * for floods such as an error thrown on every render: it hashes the exception into a fingerprint
+ * without allocating and bumps that fingerprint's count and last-seen time in a preallocated
+ * table of {@value #CAPACITY} slots, under a lock held for a few array accesses. Only a fingerprint
+ * seen for the first time has its message and stack copied, at most
+ * {@value #NEW_ENTRIES_PER_SECOND} per second. Beyond that, and while the table is full of
+ * unflushed entries, exceptions are only counted as dropped.
+ * <p>
+ * Slots are reused in ring order once their counts are on disk. Counts are written in batches, at
+ * most every {@value #FLUSH_DELAY_MS} ms, on a background thread, merged into
+ * {@code js_exceptions.json} (the {@value #MAX_STORED} most recently seen fingerprints).
+ * {@link #getAggregates} reads the merged result.
+ * <p>
+ * The fingerprint is the exception class plus its message, with digits in the first line ignored
+ * so ids and counts in error texts do not split an error. For JS errors the rest of the message is
+ * the JS stack. Exceptions without a message use their Java stack frames.
+ */
+public final class ChoicelyJSExceptionLog {
+    private static final String TAG = "ChoicelyJSExceptionLog";
+
+    static final int CAPACITY = 64;
+    static final int NEW_ENTRIES_PER_SECOND = 10;
+    static final long FLUSH_DELAY_MS = 5_000;
+    static final int MAX_STORED = 256;
+    private static final int MAX_MESSAGE_CHARS = 300;
+    private static final int MAX_STACK_CHARS = 4_000;
+    private static final int MAX_JAVA_FRAMES = 16;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * One fingerprint's totals.
+     */
+    public static final class Aggregate {
+        /**
+         * 16 hex digits.
+         */
+        @NonNull
+        public final String fingerprint;
+        /**
+         * First line of the first occurrence's message, shortened.
+         */
+        @NonNull
+        public final String message;
+        /**
+         * JS stack (or Java stack frames) of the first occurrence, shortened.
+         */
+        @NonNull
+        public final String stack;
+        public final long count;
+        public final long firstSeenMs;
+        public final long lastSeenMs;
+
+        Aggregate(@NonNull final String fingerprint,
+                  @NonNull final String message,
+                  @NonNull final String stack,
+                  final long count,
+                  final long firstSeenMs,
+                  final long lastSeenMs) {
+            this.fingerprint = fingerprint;
+            this.message = message;
+            this.stack = stack;
+            this.count = count;
+            this.firstSeenMs = firstSeenMs;
+            this.lastSeenMs = lastSeenMs;
+        }
+    }
+
+    @NonNull
+    private final File file;
+    @NonNull
+    private final ScheduledThreadPoolExecutor executor;
+    @NonNull
+    private final Runnable flushTask = this::flush;
+    @NonNull
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final Object lock = new Object();
+    // Slot table, guarded by lock. A slot is clean (reusable) when count == flushedCount.
+    private final long[] fingerprints = new long[CAPACITY];
+    private final int[] counts = new int[CAPACITY];
+    private final int[] flushedCounts = new int[CAPACITY];
+    private final long[] firstSeen = new long[CAPACITY];
+    private final long[] lastSeen = new long[CAPACITY];
+    private final String[] messages = new String[CAPACITY];
+    private final String[] stacks = new String[CAPACITY];
+    private int used;
+    private int ringNext;
+    private long dropped;
+    private long windowStartMs;
+    private int windowNewEntries;
+
+    private final Object storeLock = new Object();
+    // Flush-side copies, guarded by storeLock.
+    private final long[] batchFingerprints = new long[CAPACITY];
+    private final int[] batchCounts = new int[CAPACITY];
+    private final long[] batchFirstSeen = new long[CAPACITY];
+    private final long[] batchLastSeen = new long[CAPACITY];
+    private final String[] batchMessages = new String[CAPACITY];
+    private final String[] batchStacks = new String[CAPACITY];
+    // Everything flushed so far, by fingerprint; loaded from the file on first use.
+    @Nullable
+    private Map<Long, Aggregate> stored;
+    private long storedDropped;
+
+    public ChoicelyJSExceptionLog(@NonNull final File file) {
+        this.file = file;
+        executor = new ScheduledThreadPoolExecutor(1, r -> {
+            final Thread t = new Thread(r, "choicely-js-exceptions");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        executor.setKeepAliveTime(30, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Counts {@code e}. Cheap enough to call for every exception.
+     *
+     * @return true if this fingerprint was not in the table before, e.g. to log only new errors.
+     */
+    public boolean record(@NonNull final Throwable e) {
+        final long fingerprint = fingerprint(e);
+        final long now = System.currentTimeMillis();
+        boolean added = false;
+        synchronized (lock) {
+            int slot = find(fingerprint);
+            if (slot < 0) {
+                slot = admit(now);
+                if (slot < 0) {
+                    dropped++;
+                } else {
+                    added = true;
+                    fingerprints[slot] = fingerprint;
+                    counts[slot] = 0;
+                    flushedCounts[slot] = 0;
+                    firstSeen[slot] = now;
+                    // The only allocation, limited to NEW_ENTRIES_PER_SECOND.
+                    messages[slot] = messageOf(e);
+                    stacks[slot] = stackOf(e);
+                }
+            }
+            if (slot >= 0) {
+                counts[slot]++;
+                lastSeen[slot] = now;
+            }
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            executor.schedule(flushTask, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+        return added;
+    }
+
+    /**
+     * Flushes pending counts, then returns every stored fingerprint, most frequent first.
+     */
+    @NonNull
+    @WorkerThread
+    public List<Aggregate> getAggregates() {
+        flush();
+        synchronized (storeLock) {
+            final List<Aggregate> all = new ArrayList<>(loadStored().values());
+            Collections.sort(all, (a, b) -> Long.compare(b.count, a.count));
+            return Collections.unmodifiableList(all);
+        }
+    }
+
+    /**
+     * @return exceptions not attributed to a fingerprint (rate limit or full table), all launches.
+     */
+    @WorkerThread
+    public long getDroppedCount() {
+        flush();
+        synchronized (storeLock) {
+            loadStored();
+            return storedDropped;
+        }
+    }
+
+    /**
+     * Forgets everything recorded so far, e.g. after the aggregates were reported.
+     */
+    @WorkerThread
+    public void clear() {
+        synchronized (storeLock) {
+            synchronized (lock) {
+                used = 0;
+                ringNext = 0;
+                dropped = 0;
+                Arrays.fill(messages, null);
+                Arrays.fill(stacks, null);
+            }
+            stored = new HashMap<>();
+            storedDropped = 0;
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    /**
+     * Merges counts recorded since the last flush into the file.
+     */
+    @WorkerThread
+    void flush() {
+        flushScheduled.set(false);
+        synchronized (storeLock) {
+            final Map<Long, Aggregate> all = loadStored();
+            int batchSize = 0;
+            final long batchDropped;
+            synchronized (lock) {
+                for (int i = 0; i < used; i++) {
+                    final int delta = counts[i] - flushedCounts[i];
+                    if (delta == 0) {
+                        continue;
+                    }
+                    batchFingerprints[batchSize] = fingerprints[i];
+                    batchCounts[batchSize] = delta;
+                    batchFirstSeen[batchSize] = firstSeen[i];
+                    batchLastSeen[batchSize] = lastSeen[i];
+                    batchMessages[batchSize] = messages[i];
+                    batchStacks[batchSize] = stacks[i];
+                    flushedCounts[i] = counts[i];
+                    batchSize++;
+                }
+                batchDropped = dropped;
+                dropped = 0;
+            }
+            if (batchSize == 0 && batchDropped == 0) {
+                return;
+            }
+            for (int i = 0; i < batchSize; i++) {
+                final Aggregate previous = all.get(batchFingerprints[i]);
+                all.put(batchFingerprints[i], previous == null
+                        ? new Aggregate(hex(batchFingerprints[i]), batchMessages[i], batchStacks[i],
+                        batchCounts[i], batchFirstSeen[i], batchLastSeen[i])
+                        : new Aggregate(previous.fingerprint, previous.message, previous.stack,
+                        previous.count + batchCounts[i],
+                        Math.min(previous.firstSeenMs, batchFirstSeen[i]),
+                        Math.max(previous.lastSeenMs, batchLastSeen[i])));
+                batchMessages[i] = null;
+                batchStacks[i] = null;
+            }
+            storedDropped += batchDropped;
+            trim(all);
+            write(all);
+        }
+    }
+
+    private int find(final long fingerprint) {
+        for (int i = 0; i < used; i++) {
+            if (fingerprints[i] == fingerprint) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return a slot for a new fingerprint, or -1 if rate limited or no slot is clean.
+     */
+    private int admit(final long now) {
+        if (now - windowStartMs >= 1000 || now < windowStartMs) {
+            windowStartMs = now;
+            windowNewEntries = 0;
+        }
+        if (windowNewEntries >= NEW_ENTRIES_PER_SECOND) {
+            return -1;
+        }
+        final int slot;
+        if (used < CAPACITY) {
+            slot = used++;
+        } else if (counts[ringNext] == flushedCounts[ringNext]) {
+            slot = ringNext;
+            ringNext = (ringNext + 1) % CAPACITY;
+        } else {
+            return -1;
+        }
+        windowNewEntries++;
+        return slot;
+    }
+
+    // Guarded by storeLock.
+    @NonNull
+    private Map<Long, Aggregate> loadStored() {
+        if (stored != null) {
+            return stored;
+        }
+        final Map<Long, Aggregate> loaded = new HashMap<>();
+        if (file.isFile()) {
+            try {
+                final JSONObject json = new JSONObject(new String(ChoicelyFiles.readBytes(file), StandardCharsets.UTF_8));
+                storedDropped = json.optLong("dropped", 0);
+                final JSONArray entries = json.optJSONArray("entries");
+                for (int i = 0; entries != null && i < entries.length(); i++) {
+                    final JSONObject entry = entries.optJSONObject(i);
+                    if (entry == null) {
+                        continue;
+                    }
+                    final String fingerprint = entry.optString("fingerprint", "");
+                    try {
+                        loaded.put(Long.parseUnsignedLong(fingerprint, 16), new Aggregate(
+                                fingerprint,
+                                entry.optString("message", ""),
+                                entry.optString("stack", ""),
+                                entry.optLong("count", 0),
+                                entry.optLong("first_ms", 0),
+                                entry.optLong("last_ms", 0)
+                        ));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            } catch (IOException | JSONException e) {
+                QLog.e(e, TAG, "JS exception log unreadable, starting empty: " + file);
+            }
+        }
+        stored = loaded;
+        return loaded;
+    }
+
+    /**
+     * Keeps the {@link #MAX_STORED} most recently seen fingerprints.
+     */
+    private static void trim(@NonNull final Map<Long, Aggregate> all) {
+        if (all.size() <= MAX_STORED) {
+            return;
+        }
+        final List<Map.Entry<Long, Aggregate>> entries = new ArrayList<>(all.entrySet());
+        Collections.sort(entries, (a, b) -> Long.compare(a.getValue().lastSeenMs, b.getValue().lastSeenMs));
+        for (int i = 0; i < entries.size() - MAX_STORED; i++) {
+            all.remove(entries.get(i).getKey());
+        }
+    }
+
+    private void write(@NonNull final Map<Long, Aggregate> all) {
+        try {
+            final JSONArray entries = new JSONArray();
+            for (final Aggregate a : all.values()) {
+                final JSONObject entry = new JSONObject();
+                entry.put("fingerprint", a.fingerprint);
+                entry.put("message", a.message);
+                entry.put("stack", a.stack);
+                entry.put("count", a.count);
+                entry.put("first_ms", a.firstSeenMs);
+                entry.put("last_ms", a.lastSeenMs);
+                entries.put(entry);
+            }
+            final JSONObject json = new JSONObject();
+            json.put("dropped", storedDropped);
+            json.put("entries", entries);
+            final File parent = file.getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Could not create " + parent);
+            }
+            ChoicelyFiles.writeAtomically(file, json.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            // Counts stay in memory and are written with the next flush.
+            QLog.e(e, TAG, "JS exception log write failed: " + file);
+        }
+    }
+
+    static long fingerprint(@NonNull final Throwable e) {
+        long h = hash(FNV_OFFSET, e.getClass().getName());
+        final String message = e.getMessage();
+        if (message != null && !message.isEmpty()) {
+            boolean firstLine = true;
+            for (int i = 0; i < message.length(); i++) {
+                final char c = message.charAt(i);
+                if (c == '\n') {
+                    firstLine = false;
+                } else if (firstLine && c >= '0' && c <= '9') {
+                    continue;
+                }
+                h = (h ^ c) * FNV_PRIME;
+            }
+            return h;
+        }
+        final StackTraceElement[] frames = e.getStackTrace();
+        for (int i = 0; i < frames.length && i < MAX_JAVA_FRAMES; i++) {
+            h = hash(h, frames[i].getClassName());
+            h = hash(h, frames[i].getMethodName());
+        }
+        return h;
+    }
+
+    private static long hash(long h, @NonNull final String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * FNV_PRIME;
+        }
+        return (h ^ '|') * FNV_PRIME;
+    }
+
+    @NonNull
+    private static String messageOf(@NonNull final Throwable e) {
+        final String message = e.getMessage();
+        if (message == null) {
+            return e.getClass().getName();
+        }
+        final int end = message.indexOf('\n');
+        return shorten(end >= 0 ? message.substring(0, end) : message, MAX_MESSAGE_CHARS);
+    }
+
+    @NonNull
+    private static String stackOf(@NonNull final Throwable e) {
+        final String message = e.getMessage();
+        final int start = message != null ? message.indexOf('\n') : -1;
+        if (start >= 0) {
+            return shorten(message.substring(start + 1), MAX_STACK_CHARS);
+        }
+        final StringBuilder sb = new StringBuilder(e.getClass().getName());
+        final StackTraceElement[] frames = e.getStackTrace();
+        for (int i = 0; i < frames.length && i < MAX_JAVA_FRAMES; i++) {
+            sb.append("\n    at ").append(frames[i]);
+        }
+        return shorten(sb.toString(), MAX_STACK_CHARS);
+    }
+
+    @NonNull
+    private static String shorten(@NonNull final String s, final int max) {
+        return s.length() <= max ? s : s.substring(0, max);
+    }
+
+    @NonNull
+    private static String hex(final long fingerprint) {
+        final String hex = Long.toHexString(fingerprint);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+}
@@ -0,0 +1,55 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.facebook.jni.HybridData;
+import com.facebook.jni.annotations.DoNotStrip;
+import com.facebook.react.runtime.JSRuntimeFactory;
+
+import java.io.File;
+
+/**
+ * Hermes runtimes created with {@link ChoicelyHermesSettings} (jni/choicely/ChoicelyJSRuntimeFactory.h).
+ * <p>
+ * Used only when a setting differs from React Native's own Hermes setup; otherwise the host gets
+ * the stock factory, and with it the debugger integration this one does not provide.
+ */
+@DoNotStrip
+public final class ChoicelyJSRuntimeFactory extends JSRuntimeFactory {
+    private ChoicelyJSRuntimeFactory(@NonNull final ChoicelyHermesSettings settings) {
+        super(initHybrid(settings.initHeapBytes, settings.maxHeapBytes, settings.gcMode, settings.heapSamplingInterval));
+    }
+
+    /**
+     * @return a factory for {@code settings}, or null for the React Native default: settings at
+     * their defaults (checked first, so the native library is not touched), or the native library
+     * missing.
+     */
+    @Nullable
+    public static JSRuntimeFactory create(@NonNull final ChoicelyHermesSettings settings) {
+        if (settings.isDefault() || !ChoicelyNativeLibrary.isAvailable()) {
+            return null;
+        }
+        return new ChoicelyJSRuntimeFactory(settings);
+    }
+
+    /**
+     * Writes each live runtime's allocation-site samples so far to
+     * {@code dir/heap-<n>.heapprofile} (Chrome DevTools format) and keeps sampling. Asynchronous:
+     * runs on each runtime's JS thread. No-op unless {@code rn_hermes_heap_sampling_interval} is
+     * set.
+     */
+    public static void writeHeapSamples(@NonNull final File dir) {
+        if (ChoicelyNativeLibrary.isAvailable() && (dir.isDirectory() || dir.mkdirs())) {
+            nativeWriteHeapSamples(dir.getAbsolutePath());
+        }
+    }
+
+    private static native HybridData initHybrid(long initHeapBytes,
+                                                long maxHeapBytes,
+                                                int gcMode,
+                                                long heapSamplingInterval);
+
+    private static native void nativeWriteHeapSamples(@NonNull String dirPath);
+}
@@ -0,0 +1,39 @@
+package com.choicely.sdk.rn;
+
+import com.choicely.sdk.service.log.QLog;
+import com.facebook.soloader.SoLoader;
+
+/**
+ * The app's own native library (libappmodules.so, built from src/main/jni), which also holds
+ * Choicely's JNI classes. Only built with the {@code choicelyNative} Gradle property; otherwise
+ * libappmodules.so is React Native's stock library and Choicely's native features are off.
+ */
+final class ChoicelyNativeLibrary {
+    private static final String TAG = "ChoicelyNativeLibrary";
+
+    private static final boolean AVAILABLE = load();
+
+    private ChoicelyNativeLibrary() {
+    }
+
+    /**
+     * @return false if the library could not be loaded; Choicely's native features are then off.
+     */
+    static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    private static boolean load() {
+        if (!BuildConfig.CHOICELY_NATIVE) {
+            return false;
+        }
+        try {
+            // Also loaded by the React Native entry point; registers Choicely's natives.
+            SoLoader.loadLibrary("appmodules");
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            QLog.e(e, TAG, "Native library missing; Choicely native features are off");
+            return false;
+        }
+    }
+}
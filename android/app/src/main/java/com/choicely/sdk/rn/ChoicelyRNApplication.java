@@ -3,50 +3,133 @@ package com.choicely.sdk.rn;
 import android.app.Application;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.facebook.react.ReactApplication;
 import com.facebook.react.ReactHost;
+import com.facebook.react.ReactInstanceEventListener;
 import com.facebook.react.ReactNativeApplicationEntryPoint;
+import com.facebook.react.ReactPackage;
+import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.defaults.DefaultReactHost;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public abstract class ChoicelyRNApplication extends Application implements ReactApplication {
 
     private ChoicelyRNHost rnHost;
 
-    private final Map<String, ReactHost> choicelyReactHostsByBundlePath = new HashMap<>();
+    private final Object hostCreationLock = new Object();
+    private final ChoicelyReactHostRegistry reactHosts = new ChoicelyReactHostRegistry(
+            this::createReactHost,
+            ChoicelyReactHostRegistry.DEFAULT_MAX_LIVE_HOSTS
+    );
+    @Nullable
+    private ChoicelySurfacePool surfacePool;
+
+    @Override
+    public void onCreate() {
+        ChoicelyStartupTrace.beginLaunch();
+        // Parsed while the SDK application initializes; the first config lookup follows right after.
+        ChoicelyRNConfig.preloadConfig(this);
+        super.onCreate();
+    }
 
     protected final synchronized void initRNEngine(@NonNull final ChoicelyRNHost rnHost) {
         this.rnHost = rnHost;
+        // A bundle staged in the background since the last launch is activated, then the bundle
+        // path resolved, both on the bundle state thread; lookups on the main thread only read the
+        // published path. A changed path gets its host built in the background and swapped in at
+        // the next navigation.
+        rnHost.setBundleFileListener(reactHosts::prepare);
+        ChoicelyRNConfig.activateStagedBundleAsync(this).thenRun(rnHost::refreshJSBundleFile);
         ReactNativeApplicationEntryPoint.loadReactNative(this);
+        if (ChoicelyReactWarmup.isEnabled(this)) {
+            ChoicelyReactWarmup.get(this).start();
+        }
+        // Pre-renders the configured components; warms the host first if needed.
+        getSurfacePool().start();
     }
 
     @NonNull
     @Override
-    public final synchronized ReactHost getReactHost() {
-        final String bundleFilePath = rnHost.getJSBundleFile();
-        final ReactHost cached = choicelyReactHostsByBundlePath.get(bundleFilePath);
-        if (cached != null) {
-            return cached;
-        }
-        final ReactHost created = ChoicelyDefaultReactHost.getDefaultReactHost(
-                this,
-                rnHost.getPackages(),
-                rnHost.getJSMainModuleName(),
-                rnHost.getBundleAssetName(),
-                bundleFilePath,
-                null,
-                rnHost.getUseDeveloperSupport(),
-                new ArrayList<>(),
-                rnHost::onJSException,
-                null
-        );
-        ChoicelyDefaultReactHost.invalidate();
-        choicelyReactHostsByBundlePath.put(bundleFilePath, created);
-        return created;
+    public final ReactHost getReactHost() {
+        return reactHosts.obtain(rnHost.getJSBundleFile());
+    }
+
+    /**
+     * A React surface (fragment) was created on {@code host}. Hosts replaced by a newer bundle
+     * are destroyed once their last surface is gone.
+     */
+    public final void onReactSurfaceCreated(@NonNull final ReactHost host) {
+        reactHosts.acquire(host);
+    }
+
+    public final void onReactSurfaceDestroyed(@NonNull final ReactHost host) {
+        reactHosts.release(host);
+    }
+
+    /**
+     * Pre-rendered surfaces for the components listed in {@code rn_surface_pool}. Main thread only.
+     */
+    @NonNull
+    public final ChoicelySurfacePool getSurfacePool() {
+        if (surfacePool == null) {
+            surfacePool = new ChoicelySurfacePool(
+                    this,
+                    new SurfacePoolHosts(),
+                    ChoicelySurfaceProps.get(),
+                    ChoicelyRNConfig.loadValue("rn_surface_pool", R.string.choicely_rn_surface_pool, this),
+                    ChoicelyRNConfig.loadValue("rn_surface_pool_size", R.string.choicely_rn_surface_pool_size, this),
+                    ChoicelyRNConfig.loadValue("rn_surface_pool_idle_seconds", R.string.choicely_rn_surface_pool_idle_seconds, this)
+            );
+        }
+        return surfacePool;
+    }
+
+    @NonNull
+    private ReactHost createReactHost(@NonNull final String bundleFilePath) {
+        // DefaultReactHost keeps a process-wide instance; build one host at a time.
+        synchronized (hostCreationLock) {
+            final int trace = ChoicelyStartupTrace.begin(ChoicelyStartupTrace.PHASE_REACT_HOST_CREATE);
+            final List<ReactPackage> packages = new ArrayList<>(rnHost.getPackages());
+            packages.add(new ChoicelyRNPackage(bundleFilePath));
+            final ReactHost created = ChoicelyDefaultReactHost.getDefaultReactHost(
+                    this,
+                    packages,
+                    rnHost.getJSMainModuleName(),
+                    rnHost.getBundleAssetName(),
+                    bundleFilePath,
+                    rnHost.getJSRuntimeFactory(),
+                    rnHost.getUseDeveloperSupport(),
+                    ChoicelyCxxReactPackage.providers(),
+                    rnHost::onJSException,
+                    ChoicelyBindingsInstaller.create(ChoicelyRNConfig.getConfig(this))
+            );
+            ChoicelyDefaultReactHost.invalidate();
+            ChoicelyStartupTrace.end(trace);
+            traceBundleLoad(created);
+            return created;
+        }
+    }
+
+    /**
+     * Times host creation to React context initialized (bundle load and evaluation).
+     */
+    private static void traceBundleLoad(@NonNull final ReactHost host) {
+        final int trace = ChoicelyStartupTrace.begin(ChoicelyStartupTrace.PHASE_BUNDLE_LOAD);
+        if (trace == ChoicelyStartupTrace.NO_PHASE) {
+            return;
+        }
+        host.addReactInstanceEventListener(new ReactInstanceEventListener() {
+            @Override
+            public void onReactContextInitialized(@NonNull final ReactContext context) {
+                host.removeReactInstanceEventListener(this);
+                ChoicelyStartupTrace.end(trace);
+            }
+        });
     }
 
     @NonNull
@@ -54,4 +137,37 @@ public abstract class ChoicelyRNApplication extends Application implements React
     public final ChoicelyRNHost getReactNativeHost() {
         return rnHost;
     }
+
+    private final class SurfacePoolHosts implements ChoicelySurfacePool.Hosts {
+        @NonNull
+        @Override
+        public ReactHost getReactHost() {
+            return ChoicelyRNApplication.this.getReactHost();
+        }
+
+        @Override
+        public void onReactSurfaceCreated(@NonNull final ReactHost host) {
+            ChoicelyRNApplication.this.onReactSurfaceCreated(host);
+        }
+
+        @Override
+        public void onReactSurfaceDestroyed(@NonNull final ReactHost host) {
+            ChoicelyRNApplication.this.onReactSurfaceDestroyed(host);
+        }
+
+        @NonNull
+        @Override
+        public CompletableFuture<Boolean> warmUp() {
+            final ChoicelyReactWarmup warmup = ChoicelyReactWarmup.get(ChoicelyRNApplication.this);
+            warmup.start();
+            return warmup.whenReady();
+        }
+
+        @Override
+        public void startHost(@NonNull final ReactHost host,
+                              @NonNull final Runnable onReady,
+                              @NonNull final Runnable onFailed) {
+            ChoicelyReactWarmup.startHost(host, onReady, onFailed);
+        }
+    }
 }
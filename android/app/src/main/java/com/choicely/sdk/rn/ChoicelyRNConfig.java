@@ -7,30 +7,57 @@ import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 
 import com.choicely.sdk.ChoicelySDK;
+import com.choicely.sdk.service.log.QLog;
 
-import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public final class ChoicelyRNConfig {
 
+    /**
+     * Legacy default-preferences keys, imported once into {@link ChoicelyBundleState} (see
+     * {@link #importLegacyBundleState}).
+     */
     private static final String PREFS_PROD_VERSION_KEY = "bundle_version_name";
+    private static final String PREFS_SCHEDULED_VERSION_KEY = "bundle_scheduled_version_name";
     private static final String PREFS_DEBUG_SERVER_HOST_KEY = "debug_http_host";
     private static final String CHOICELY_CONFIG_FILE = "choicely_config.json";
+    private static final String TAG = "ChoicelyRNConfig";
+    private static final int BACKGROUND_THREADS = 2;
 
+    /**
+     * Bundle index and journal work, in submission order. The bundle state methods below run only
+     * here, which serializes them without a lock the main thread could wait on.
+     */
+    private static final ThreadPoolExecutor BUNDLE_STATE_EXECUTOR = createBundleStateExecutor();
+    /**
+     * Short one-off work off the main thread: config preload, warm-up, asset bundle copy and host
+     * swaps. Kept apart from {@link #BUNDLE_STATE_EXECUTOR} because warm-up waits for work queued
+     * there.
+     */
+    private static final ThreadPoolExecutor BACKGROUND_EXECUTOR = createBackgroundExecutor();
+    /**
+     * Guards parsing choicely_config.json, and nothing else.
+     */
+    private static final Object CONFIG_LOCK = new Object();
+
+    /**
+     * Set once, never cleared; a failed read is stored as an empty snapshot.
+     */
     @Nullable
-    private static JSONObject cachedConfigJson;
-    @Nullable
-    private static SharedPreferences rnPrefs;
+    private static volatile ChoicelyConfigSnapshot configSnapshot;
 
     @NonNull
     public static String loadValue(
@@ -53,36 +80,62 @@ public final class ChoicelyRNConfig {
             @NonNull final String assetKey,
             @NonNull final Context context
     ) {
-        loadConfigFromAssetsIfNeeded(context.getApplicationContext());
-        if (cachedConfigJson != null) {
-            final String value = cachedConfigJson.optString(assetKey, "");
-            if (TextUtils.getTrimmedLength(value) > 0) {
-                return value;
-            }
+        return getConfig(context).getString(assetKey);
+    }
+
+    /**
+     * @return the parsed choicely_config.json. After the first load this is a single volatile read.
+     */
+    @NonNull
+    public static ChoicelyConfigSnapshot getConfig(@NonNull final Context context) {
+        final ChoicelyConfigSnapshot snapshot = configSnapshot;
+        if (snapshot != null) {
+            return snapshot;
         }
-        return null;
+        return loadConfig(context.getApplicationContext());
     }
 
-    private static synchronized void loadConfigFromAssetsIfNeeded(@NonNull final Context context) {
-        if (cachedConfigJson != null) {
+    /**
+     * Parses choicely_config.json on a background thread so the first {@link #loadValue} on the
+     * main thread finds it ready (or waits only for the remainder).
+     */
+    public static void preloadConfig(@NonNull final Context context) {
+        final Context app = context.getApplicationContext();
+        if (configSnapshot != null) {
             return;
         }
-        try (final InputStream is = context.getAssets().open(CHOICELY_CONFIG_FILE);
-             final BufferedReader reader = new BufferedReader(
-                     new InputStreamReader(is, StandardCharsets.UTF_8)
-             )) {
-            final StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line);
+        BACKGROUND_EXECUTOR.execute(() -> loadConfig(app));
+    }
+
+    @NonNull
+    private static ChoicelyConfigSnapshot loadConfig(@NonNull final Context context) {
+        synchronized (CONFIG_LOCK) {
+            ChoicelyConfigSnapshot snapshot = configSnapshot;
+            if (snapshot == null) {
+                final int trace = ChoicelyStartupTrace.begin(ChoicelyStartupTrace.PHASE_CONFIG_PARSE);
+                snapshot = ChoicelyConfigSnapshot.read(context.getAssets(), CHOICELY_CONFIG_FILE);
+                configSnapshot = snapshot;
+                ChoicelyStartupTrace.end(trace);
             }
-            cachedConfigJson = new JSONObject(sb.toString());
-        } catch (IOException | JSONException e) {
-            cachedConfigJson = null;
+            return snapshot;
         }
     }
 
-    public static synchronized void refresh(@NonNull final String appKey, @NonNull final ChoicelyRNApplication app) {
+    /**
+     * Applies the app custom data cached by the previous launch right away, then revalidates it in
+     * the background once it is older than {@code rn_app_data_ttl_seconds}. A response only
+     * triggers an update when the bundle-selecting values actually changed.
+     */
+    public static void refresh(@NonNull final String appKey, @NonNull final ChoicelyRNApplication app) {
+        final ChoicelyAppDataCache cache = app.getReactNativeHost().getAppDataCache();
+        final ChoicelyAppDataCache.Entry cached = cache.get();
+        if (cached != null) {
+            ChoicelyBindingsInstaller.updateAppData(cached.customData);
+            applyAppData(cached, app);
+            if (cached.isFresh(getAppDataTtlMs(app), System.currentTimeMillis())) {
+                return;
+            }
+        }
         ChoicelySDK.data().getChoicelyAppData(appKey)
                 .onData((appData) -> {
                     if (appData == null) {
@@ -92,13 +145,38 @@ public final class ChoicelyRNConfig {
                     if (customData == null) {
                         return;
                     }
-                    setServerDebug(customData.optString("bundle_url_mobile", ""), app);
-                    setServerProd(customData.optString("full_version_name", ""), app, appKey);
+                    final ChoicelyAppDataCache.Entry fetched =
+                            new ChoicelyAppDataCache.Entry(customData, System.currentTimeMillis());
+                    // JS sees every custom data change; the bundle only follows its own fields.
+                    ChoicelyBindingsInstaller.updateAppData(customData);
+                    if (cache.put(fetched)) {
+                        applyAppData(fetched, app);
+                    }
                 }).onError((errorCode, message) -> {
                 }).getData();
     }
 
-    public static synchronized void setServerDebug(
+    private static void applyAppData(@NonNull final ChoicelyAppDataCache.Entry entry,
+                                     @NonNull final ChoicelyRNApplication app) {
+        setServerDebug(entry.bundleUrlMobile, app);
+        // Reads the store index and the journal, and may append to it: keep it off the main thread.
+        BUNDLE_STATE_EXECUTOR.execute(() -> setServerProd(entry.fullVersionName, app));
+    }
+
+    private static long getAppDataTtlMs(@NonNull final Context context) {
+        final String configured = loadValue("rn_app_data_ttl_seconds", R.string.choicely_rn_app_data_ttl_seconds, context);
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(configured.trim())));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Points the dev support at the Metro host {@code host}. The preferences are written on the
+     * bundle state thread.
+     */
+    public static void setServerDebug(
             @Nullable final String host,
             @NonNull final ChoicelyRNApplication app
     ) {
@@ -106,9 +184,6 @@ public final class ChoicelyRNConfig {
         if (!isDev) {
             return;
         }
-        if (rnPrefs == null) {
-            rnPrefs = PreferenceManager.getDefaultSharedPreferences(app);
-        }
         if (TextUtils.getTrimmedLength(host) <= 0) {
             return;
         }
@@ -120,16 +195,17 @@ public final class ChoicelyRNConfig {
         if (normalized.isEmpty()) {
             return;
         }
-        rnPrefs.edit()
-                .putString(PREFS_DEBUG_SERVER_HOST_KEY, normalized)
-                .apply();
+        final String debugHost = normalized;
+        BUNDLE_STATE_EXECUTOR.execute(() -> PreferenceManager.getDefaultSharedPreferences(app).edit()
+                .putString(PREFS_DEBUG_SERVER_HOST_KEY, debugHost)
+                .apply());
     }
 
 
-    private static synchronized void setServerProd(
+    @WorkerThread
+    private static void setServerProd(
             @Nullable final String versionName,
-            @NonNull final ChoicelyRNApplication app,
-            @NonNull final String appKey
+            @NonNull final ChoicelyRNApplication app
     ) {
         final boolean isDev = app.getReactNativeHost().getUseDeveloperSupport();
         if (isDev) {
@@ -138,15 +214,165 @@ public final class ChoicelyRNConfig {
         if (TextUtils.getTrimmedLength(versionName) <= 0) {
             return;
         }
-        if (rnPrefs == null) {
-            rnPrefs = PreferenceManager.getDefaultSharedPreferences(app);
+        final ChoicelyRNHost host = app.getReactNativeHost();
+        final String bundleAssetName = host.getBundleAssetName();
+        final ChoicelyBundleStore store = host.getBundleStore();
+        final File current = store.currentFile(bundleAssetName);
+        if (versionName.equals(installedVersion(host)) && current != null && current.isFile() && current.length() > 0) {
+            return;
+        }
+        if (versionName.equals(store.getStagedVersion(bundleAssetName))) {
+            return;
+        }
+        // Downloading competes with cold start and only applies at the next launch or navigation
+        // anyway, so hand it to the background scheduler; re-requesting the same version keeps its
+        // pending work.
+        final ChoicelyBundleState state = host.getBundleState();
+        final boolean sameVersion = versionName.equals(state.getScheduledVersion());
+        state.setScheduledVersion(versionName);
+        ChoicelyBundleUpdateWorker.schedule(app, versionName, sameVersion);
+    }
+
+    /**
+     * {@link #activateStagedBundle} on a background thread, for cold start, after the one-time
+     * import of legacy bundle state: reading and rewriting the store index and the journal (each
+     * fsynced) stays off the main thread. The host resolves its bundle path once the returned
+     * future completes, so the published path includes the activated bundle.
+     *
+     * @return future completing with the version that became current, or null; never exceptionally.
+     */
+    @NonNull
+    public static CompletableFuture<String> activateStagedBundleAsync(@NonNull final ChoicelyRNApplication app) {
+        return CompletableFuture.supplyAsync(() -> {
+                    importLegacyBundleState(app.getReactNativeHost());
+                    final String activated = activateStagedBundle(app);
+                    // Loads (and if needed repairs) the journal, so getBundleVersion() has a
+                    // snapshot to read.
+                    installedVersion(app.getReactNativeHost());
+                    return activated;
+                }, BUNDLE_STATE_EXECUTOR)
+                .exceptionally(e -> {
+                    QLog.e(e, TAG, "Activating the staged bundle failed");
+                    return null;
+                });
+    }
+
+    /**
+     * Makes the bundle staged by {@link ChoicelyBundleUpdateWorker} current. Only swaps the store
+     * pointer and records the new version in the journal. Bundle state thread only.
+     *
+     * @return the version that became current, or null if nothing was staged.
+     */
+    @Nullable
+    @WorkerThread
+    private static String activateStagedBundle(@NonNull final ChoicelyRNApplication app) {
+        final ChoicelyRNHost host = app.getReactNativeHost();
+        final ChoicelyBundleStore store = host.getBundleStore();
+        final String staged = store.activateStaged(host.getBundleAssetName());
+        if (staged == null) {
+            return null;
+        }
+        final File current = store.currentFile(host.getBundleAssetName());
+        if (current != null) {
+            host.getBundleState().setInstalled(staged, current);
+        }
+        return staged;
+    }
+
+    /**
+     * Lock-free: the journal's last loaded state, which the bundle state thread loads at startup.
+     *
+     * @return the installed production bundle version, or "" if running the APK bundle (or the
+     * journal is not loaded yet).
+     */
+    @NonNull
+    public static String getBundleVersion(@NonNull final Context context) {
+        final Context app = context.getApplicationContext();
+        if (!(app instanceof ChoicelyRNApplication)) {
+            return "";
+        }
+        final ChoicelyRNHost host = ((ChoicelyRNApplication) app).getReactNativeHost();
+        if (host == null) {
+            return "";
+        }
+        final ChoicelyBundleState.Installed installed = host.getBundleState().peekInstalled();
+        return installed != null ? installed.version : "";
+    }
+
+    /**
+     * Version of the store's current bundle. The journal and the store index are separate atomic
+     * writes; if the process died between the two, the version is recovered from the store index
+     * (and the journal repaired) instead of re-downloading. Bundle state thread only.
+     */
+    @WorkerThread
+    @NonNull
+    private static String installedVersion(@NonNull final ChoicelyRNHost host) {
+        final File current = host.getBundleStore().currentFile(host.getBundleAssetName());
+        if (current == null) {
+            return "";
+        }
+        final ChoicelyBundleState state = host.getBundleState();
+        final ChoicelyBundleState.Installed installed = state.getInstalled();
+        if (installed != null && installed.sha256.equals(current.getName())) {
+            return installed.version;
+        }
+        final String version = host.getBundleStore().versionOf(host.getBundleAssetName(), current);
+        if (version == null) {
+            return "";
         }
-        final String lastVersion = rnPrefs.getString(PREFS_PROD_VERSION_KEY, "");
-        final String bundleAssetName = app.getReactNativeHost().getBundleAssetName();
-        final File destFile = app.getReactNativeHost().getRemoteBundleFile();
-        if (versionName.equals(lastVersion) && destFile.isFile() && destFile.canRead() && destFile.length() > 0) {
+        state.setInstalled(version, current);
+        return version;
+    }
+
+    /**
+     * Imports the bundle versions older releases kept in the default SharedPreferences into the
+     * journal, once: a no-op as soon as the journal exists. Runs first on the bundle state thread,
+     * so loading the default preferences never happens on the main thread.
+     */
+    @WorkerThread
+    private static void importLegacyBundleState(@NonNull final ChoicelyRNHost host) {
+        final ChoicelyBundleState state = host.getBundleState();
+        if (state.exists()) {
             return;
         }
+        final SharedPreferences legacy = PreferenceManager.getDefaultSharedPreferences(host.getApplication());
+        final String version = legacy.getString(PREFS_PROD_VERSION_KEY, "");
+        final File current = host.getBundleStore().currentFile(host.getBundleAssetName());
+        state.initialize(version, current, legacy.getString(PREFS_SCHEDULED_VERSION_KEY, ""));
+        if (state.exists()) {
+            legacy.edit()
+                    .remove(PREFS_PROD_VERSION_KEY)
+                    .remove(PREFS_SCHEDULED_VERSION_KEY)
+                    .apply();
+        }
+    }
+
+    /**
+     * @return the version downloaded in the background and waiting to be activated, or null. With
+     * {@code rn_bundle_hot_swap} on it is activated as soon as it is staged.
+     */
+    @Nullable
+    public static String getStagedBundleVersion(@NonNull final ChoicelyRNApplication app) {
+        final ChoicelyRNHost host = app.getReactNativeHost();
+        return host.getBundleStore().getStagedVersion(host.getBundleAssetName());
+    }
+
+    /**
+     * Downloads {@code versionName} and stages it in the bundle store. Blocks until done.
+     *
+     * @return true if the version is staged (or already current).
+     */
+    @WorkerThread
+    static boolean stageBundle(
+            @NonNull final String versionName,
+            @NonNull final ChoicelyRNApplication app
+    ) throws InterruptedException {
+        final ChoicelyRNHost host = app.getReactNativeHost();
+        final String appKey = host.getAppKey();
+        final String lastVersion = CompletableFuture.supplyAsync(() -> installedVersion(host), BUNDLE_STATE_EXECUTOR).join();
+        final String bundleAssetName = host.getBundleAssetName();
+        final File destFile = host.getRemoteBundleFile();
+        final ChoicelyBundleStore store = host.getBundleStore();
         final String bundleUrl = app.getString(
                 R.string.choicely_rn_bundles_url,
                 appKey,
@@ -154,19 +380,109 @@ public final class ChoicelyRNConfig {
                 versionName,
                 bundleAssetName
         );
-        java.util.concurrent.ExecutorService exec =
-                java.util.concurrent.Executors.newSingleThreadExecutor();
-        exec.execute(() -> {
-            final boolean bundleUpdateOk = ChoicelyRemoteBundle.download(bundleUrl, destFile, false).join();
-            if (!bundleUpdateOk) {
-                return;
+        final boolean canPatch = !lastVersion.isEmpty() && destFile.isFile() && destFile.canRead();
+        final String patchUrl = canPatch ? app.getString(
+                R.string.choicely_rn_bundle_patch_url,
+                appKey,
+                app.getString(R.string.choicely_rn_platform),
+                versionName,
+                bundleAssetName,
+                lastVersion
+        ) : null;
+        final String manifestUrl = app.getString(
+                R.string.choicely_rn_bundle_manifest_url,
+                appKey,
+                app.getString(R.string.choicely_rn_platform),
+                versionName
+        );
+        final String manifestKey = loadValue("rn_manifest_public_key", R.string.choicely_rn_manifest_public_key, app);
+        final int hbcVersion = ChoicelyHermesBytecode.getRuntimeVersion(app, bundleAssetName);
+        final String hbcUrl = hbcVersion != ChoicelyHermesBytecode.UNKNOWN_VERSION ? app.getString(
+                R.string.choicely_rn_hbc_bundles_url,
+                appKey,
+                app.getString(R.string.choicely_rn_platform),
+                versionName,
+                bundleAssetName,
+                String.valueOf(hbcVersion)
+        ) : null;
+        final CompletableFuture<Boolean> staged = ChoicelyBundleDownloads.get().submit(bundleUrl, destFile, job -> {
+            // Already stored (rollback or a version seen before): just stage the pointer.
+            if (store.stageStored(bundleAssetName, versionName)) {
+                return true;
             }
-            rnPrefs.edit()
-                    .putString(PREFS_PROD_VERSION_KEY, versionName)
-                    .apply();
-            // If you need UI changes:
-//            new android.os.Handler(android.os.Looper.getMainLooper()).post(() -> {
-//            });
+            final ChoicelyBundleManifest manifest = ChoicelyBundleManifest.fetch(manifestUrl, manifestKey);
+            if (manifest == null) {
+                return false;
+            }
+            final String expectedSha256 = manifest.sha256Of(bundleAssetName);
+            // Try the delta from the installed version first, then precompiled Hermes bytecode for
+            // this runtime, then the full JS source bundle.
+            final boolean bundleUpdateOk = (patchUrl != null && ChoicelyBundlePatch.apply(job, patchUrl, expectedSha256))
+                    || (hbcUrl != null && ChoicelyRemoteBundle.fetch(
+                            job,
+                            hbcUrl,
+                            manifest.sha256Of("hbc-" + hbcVersion + "/" + bundleAssetName),
+                            file -> ChoicelyHermesBytecode.isValid(file, hbcVersion)
+                    ))
+                    || ChoicelyRemoteBundle.fetch(job, expectedSha256);
+            if (!bundleUpdateOk || job.isCancelled()) {
+                return false;
+            }
+            return job.commit(() -> store.stage(bundleAssetName, versionName, destFile) != null);
         });
+        try {
+            return staged.get();
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the single thread that reads and writes the bundle store and journal, in submission
+     * order.
+     */
+    @NonNull
+    static Executor getBundleStateExecutor() {
+        return BUNDLE_STATE_EXECUTOR;
+    }
+
+    /**
+     * @return the shared low-priority executor for background work that may wait on the bundle
+     * state executor.
+     */
+    @NonNull
+    static Executor getBackgroundExecutor() {
+        return BACKGROUND_EXECUTOR;
+    }
+
+    @NonNull
+    private static ThreadPoolExecutor createBundleStateExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                1,
+                1,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> new Thread(r, "choicely-rn-bundle-state")
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @NonNull
+    private static ThreadPoolExecutor createBackgroundExecutor() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                BACKGROUND_THREADS,
+                BACKGROUND_THREADS,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    final Thread t = new Thread(r, "choicely-rn-background-" + threadCount.incrementAndGet());
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                }
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 }
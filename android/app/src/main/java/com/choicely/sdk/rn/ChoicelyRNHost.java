@@ -5,24 +5,53 @@ import android.content.Context;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 
+import com.choicely.sdk.service.log.QLog;
 import com.facebook.react.PackageList;
 import com.facebook.react.ReactPackage;
 import com.facebook.react.bridge.JSExceptionHandler;
 import com.facebook.react.defaults.DefaultReactNativeHost;
+import com.facebook.react.runtime.JSRuntimeFactory;
 
 import java.io.File;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import kotlin.Unit;
 
 public abstract class ChoicelyRNHost extends DefaultReactNativeHost {
+    private static final String TAG = "ChoicelyRNHost";
 
     private static final String BUNDLES_SUBDIR = "rn/bundles";
+    private static final String SEGMENTS_SUBDIR = "rn/segments";
+    private static final String STATE_FILE = "state.journal";
+    private static final String APP_DATA_FILE = "rn/app_data.json";
+    private static final String ASSET_BUNDLE_SUBDIR = "rn/asset";
+    private static final String JS_EXCEPTIONS_FILE = "rn/js_exceptions.json";
 
     @NonNull
     private final String appKey;
+    @Nullable
+    private ChoicelyBundleStore bundleStore;
+    @Nullable
+    private ChoicelyBundleState bundleState;
+    @Nullable
+    private ChoicelyAppDataCache appDataCache;
+    @Nullable
+    private ChoicelyAssetBundle assetBundle;
+    @Nullable
+    private ChoicelyJSExceptionLog jsExceptionLog;
+    /**
+     * Last bundle path resolved on the bundle state thread; null until the first resolution.
+     */
+    @Nullable
+    private volatile String bundleFile;
+    @NonNull
+    private final CompletableFuture<String> firstBundleFile = new CompletableFuture<>();
+    @Nullable
+    private volatile BundleFileListener bundleFileListener;
 
     public ChoicelyRNHost(
             @NonNull final Application application,
@@ -37,10 +66,10 @@ public abstract class ChoicelyRNHost extends DefaultReactNativeHost {
     public abstract String getJSMainModuleName();
 
     public Unit onJSException(final Exception e) {
-        if (BuildConfig.DEBUG) {
+        final boolean isNew = getJSExceptionLog().record(e);
+        if (BuildConfig.DEBUG && isNew) {
             e.printStackTrace();
         }
-        // TODO: hook crash reporting here for release builds.
         return Unit.INSTANCE;
     }
 
@@ -49,21 +78,218 @@ public abstract class ChoicelyRNHost extends DefaultReactNativeHost {
         return BuildConfig.USE_METRO;
     }
 
+    /**
+     * Runtime factory for a new React host, tuned by {@link ChoicelyHermesSettings} from the config
+     * and the last known app custom data.
+     *
+     * @return null for React Native's default Hermes factory: nothing is tuned, or developer
+     * support is on (the tuned factory has no debugger integration).
+     */
+    @Nullable
+    public JSRuntimeFactory getJSRuntimeFactory() {
+        final ChoicelyAppDataCache.Entry appData = getAppDataCache().get();
+        final ChoicelyHermesSettings settings = ChoicelyHermesSettings.load(
+                getApplication(), appData != null ? appData.customData : null);
+        if (settings.isDefault()) {
+            // Untuned installs keep React Native's HermesInstance and never reach native code.
+            return null;
+        }
+        if (getUseDeveloperSupport()) {
+            QLog.e(TAG, "Hermes settings ignored with developer support on: " + settings);
+            return null;
+        }
+        return ChoicelyJSRuntimeFactory.create(settings);
+    }
+
+    /**
+     * The last bundle path published by {@link #refreshJSBundleFile()}: a volatile read, safe on
+     * the main thread. Until the first resolution completes this is the APK's bundle asset.
+     */
     @NonNull
     @Override
     protected String getJSBundleFile() {
+        final String path = bundleFile;
+        return path != null ? path : "assets://" + getBundleAssetName();
+    }
+
+    /**
+     * @return future of the first resolved bundle path, for background threads that would rather
+     * wait for it than start on the asset fallback of {@link #getJSBundleFile()}.
+     */
+    @NonNull
+    public CompletableFuture<String> whenJSBundleFileResolved() {
+        return firstBundleFile;
+    }
+
+    /**
+     * Resolves the bundle path on the bundle state thread (store lookups and the bytecode header
+     * check stay off the main thread) and publishes it for {@link #getJSBundleFile()}. Runs at
+     * startup and whenever the store's current bundle changes.
+     *
+     * @return future of the published path; never completes exceptionally.
+     */
+    @NonNull
+    public CompletableFuture<String> refreshJSBundleFile() {
+        return CompletableFuture.supplyAsync(this::publishJSBundleFile, ChoicelyRNConfig.getBundleStateExecutor())
+                .exceptionally(e -> {
+                    QLog.e(e, TAG, "Resolving the bundle file failed");
+                    return getJSBundleFile();
+                });
+    }
+
+    /**
+     * Called on the bundle state thread whenever a newly resolved bundle path differs from the
+     * previous one (including the asset fallback served before the first resolution).
+     */
+    void setBundleFileListener(@Nullable final BundleFileListener listener) {
+        bundleFileListener = listener;
+    }
+
+    @WorkerThread
+    @NonNull
+    private String publishJSBundleFile() {
+        final String previous = getJSBundleFile();
+        final String path = resolveJSBundleFile();
+        bundleFile = path;
+        firstBundleFile.complete(path);
+        final BundleFileListener listener = bundleFileListener;
+        if (listener != null && !path.equals(previous)) {
+            listener.onBundleFileChanged(path);
+        }
+        return path;
+    }
+
+    @WorkerThread
+    @NonNull
+    private String resolveJSBundleFile() {
+        final String assetName = getBundleAssetName();
+        final File current = getBundleStore().currentFile(assetName);
+        if (isUsableBundle(current)) {
+            return current.getAbsolutePath();
+        }
+        // Bundles downloaded before the store existed are used until the next update commits one.
         final File bundleFile = getRemoteBundleFile();
-        if (bundleFile.isFile() && bundleFile.canRead() && bundleFile.length() > 0) {
+        if (isUsableBundle(bundleFile)) {
             return bundleFile.getAbsolutePath();
         }
-        final String assetName = getBundleAssetName();
+        // The APK's own bundle, loaded memory-mapped from a copy once one exists.
+        if (!getUseDeveloperSupport() && isAssetBundleMmapEnabled()) {
+            final ChoicelyAssetBundle asset = getAssetBundle();
+            final File copy = asset.getFile();
+            if (copy != null) {
+                return copy.getAbsolutePath();
+            }
+            asset.copyAsync();
+        }
         return "assets://" + assetName;
     }
 
+    private boolean isAssetBundleMmapEnabled() {
+        return Boolean.parseBoolean(ChoicelyRNConfig.loadValue(
+                "rn_bundle_asset_mmap", R.string.choicely_rn_bundle_asset_mmap, getApplication()).trim());
+    }
+
+    /**
+     * Non-empty, readable, and if it is Hermes bytecode, compiled for the embedded runtime (an app
+     * update can ship a newer Hermes than the stored bundle was built for).
+     */
+    private boolean isUsableBundle(@Nullable final File bundleFile) {
+        return bundleFile != null
+                && bundleFile.isFile()
+                && bundleFile.canRead()
+                && bundleFile.length() > 0
+                && ChoicelyHermesBytecode.isLoadable(
+                        bundleFile,
+                        ChoicelyHermesBytecode.getRuntimeVersion(getApplication(), getBundleAssetName())
+                );
+    }
+
+    /**
+     * Download target for the remote bundle. Committed versions live in {@link #getBundleStore()};
+     * this file is the base for conditional requests and delta patches.
+     */
     public File getRemoteBundleFile() {
-        final String assetName = getBundleAssetName();
+        return new File(getBundlesDir(), getBundleAssetName());
+    }
+
+    @NonNull
+    public synchronized ChoicelyBundleStore getBundleStore() {
+        if (bundleStore == null) {
+            bundleStore = new ChoicelyBundleStore(getBundlesDir());
+            bundleStore.addListener((bundleName, current) -> {
+                if (bundleName.equals(getBundleAssetName())) {
+                    refreshJSBundleFile();
+                }
+            });
+        }
+        return bundleStore;
+    }
+
+    /**
+     * Installed and scheduled bundle versions, kept next to the bundle store.
+     */
+    @NonNull
+    public synchronized ChoicelyBundleState getBundleState() {
+        if (bundleState == null) {
+            bundleState = new ChoicelyBundleState(new File(getBundlesDir(), STATE_FILE));
+        }
+        return bundleState;
+    }
+
+    /**
+     * Last known app custom data that selects the bundle.
+     */
+    @NonNull
+    public synchronized ChoicelyAppDataCache getAppDataCache() {
+        if (appDataCache == null) {
+            final Context ctx = getApplication().getApplicationContext();
+            appDataCache = new ChoicelyAppDataCache(new File(new File(ctx.getFilesDir(), this.appKey), APP_DATA_FILE));
+        }
+        return appDataCache;
+    }
+
+    /**
+     * File copy of the bundle asset, see {@link ChoicelyAssetBundle}.
+     */
+    @NonNull
+    public synchronized ChoicelyAssetBundle getAssetBundle() {
+        if (assetBundle == null) {
+            final Context ctx = getApplication().getApplicationContext();
+            assetBundle = new ChoicelyAssetBundle(ctx, new File(new File(ctx.getFilesDir(), this.appKey), ASSET_BUNDLE_SUBDIR), getBundleAssetName());
+        }
+        return assetBundle;
+    }
+
+    /**
+     * Aggregated JS exceptions, see {@link ChoicelyJSExceptionLog}.
+     */
+    @NonNull
+    public synchronized ChoicelyJSExceptionLog getJSExceptionLog() {
+        if (jsExceptionLog == null) {
+            final Context ctx = getApplication().getApplicationContext();
+            jsExceptionLog = new ChoicelyJSExceptionLog(new File(new File(ctx.getFilesDir(), this.appKey), JS_EXCEPTIONS_FILE));
+        }
+        return jsExceptionLog;
+    }
+
+    /**
+     * Cache of per-component segments, one directory per base bundle version.
+     */
+    @NonNull
+    public File getSegmentsDir() {
         final Context ctx = getApplication().getApplicationContext();
-        return new File(new File(new File(ctx.getFilesDir(), this.appKey), BUNDLES_SUBDIR), assetName);
+        return new File(new File(ctx.getFilesDir(), this.appKey), SEGMENTS_SUBDIR);
+    }
+
+    @NonNull
+    public String getAppKey() {
+        return appKey;
+    }
+
+    @NonNull
+    private File getBundlesDir() {
+        final Context ctx = getApplication().getApplicationContext();
+        return new File(new File(ctx.getFilesDir(), this.appKey), BUNDLES_SUBDIR);
     }
 
     @NonNull
@@ -82,4 +308,9 @@ public abstract class ChoicelyRNHost extends DefaultReactNativeHost {
     protected List<ReactPackage> getPackages() {
         return new PackageList(this).getPackages();
     }
+
+    interface BundleFileListener {
+        @WorkerThread
+        void onBundleFileChanged(@NonNull String path);
+    }
 }
@@ -0,0 +1,41 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.ReactPackage;
+import com.facebook.react.bridge.NativeModule;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.uimanager.ViewManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Native modules of the Choicely RN host itself, added to every {@link com.facebook.react.ReactHost}
+ * next to the autolinked packages. Bound to the bundle that host runs.
+ */
+public class ChoicelyRNPackage implements ReactPackage {
+
+    @NonNull
+    private final String bundlePath;
+
+    public ChoicelyRNPackage(@NonNull final String bundlePath) {
+        this.bundlePath = bundlePath;
+    }
+
+    @NonNull
+    @Override
+    public List<NativeModule> createNativeModules(@NonNull final ReactApplicationContext reactContext) {
+        return Arrays.asList(
+                new ChoicelySegmentsModule(reactContext, bundlePath),
+                new ChoicelySurfacePropsModule(reactContext)
+        );
+    }
+
+    @NonNull
+    @Override
+    public List<ViewManager> createViewManagers(@NonNull final ReactApplicationContext reactContext) {
+        return Collections.emptyList();
+    }
+}
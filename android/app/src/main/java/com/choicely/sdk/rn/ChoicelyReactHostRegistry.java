@@ -0,0 +1,226 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.choicely.sdk.service.log.QLog;
+import com.facebook.react.ReactHost;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Live ReactHosts, at most one per bundle file and at most {@code maxLiveHosts} in total.
+ * <ul>
+ *   <li>The active host serves every new surface.</li>
+ *   <li>When the current bundle changes, the host for the new bundle is created and started in
+ *   the background ({@link #prepare}); the active host keeps serving until it is ready, and the
+ *   first lookup after that switches over.</li>
+ *   <li>A replaced host is destroyed as soon as its last surface is gone.</li>
+ * </ul>
+ * Surfaces are counted through {@link #acquire}/{@link #release}, called by the RN fragment.
+ */
+final class ChoicelyReactHostRegistry {
+    private static final String TAG = "ChoicelyReactHosts";
+    static final int DEFAULT_MAX_LIVE_HOSTS = 2;
+
+    interface HostFactory {
+        @NonNull
+        ReactHost create(@NonNull String bundlePath);
+    }
+
+    @NonNull
+    private final HostFactory factory;
+    private final int maxLiveHosts;
+
+    /**
+     * Guarded by {@code this}.
+     */
+    private final Map<ReactHost, Entry> live = new IdentityHashMap<>();
+    /**
+     * Written under {@code this}; read without the lock by {@link #obtain}.
+     */
+    @Nullable
+    private volatile Entry active;
+    @Nullable
+    private Entry pending;
+    /**
+     * Bundle waiting for a free slot because the cap was reached.
+     */
+    @Nullable
+    private String deferredPath;
+
+    ChoicelyReactHostRegistry(@NonNull final HostFactory factory, final int maxLiveHosts) {
+        this.factory = factory;
+        this.maxLiveHosts = Math.max(2, maxLiveHosts);
+    }
+
+    /**
+     * @return the host new surfaces should use for the bundle at {@code bundlePath}: the active
+     * host, the prepared host for {@code bundlePath} once ready, or a new host if none is active.
+     * Lock-free while {@code bundlePath} is the active host's bundle.
+     */
+    @NonNull
+    ReactHost obtain(@NonNull final String bundlePath) {
+        final Entry current = active;
+        if (current != null && current.bundlePath.equals(bundlePath)) {
+            return current.host;
+        }
+        return obtainSlow(bundlePath);
+    }
+
+    @NonNull
+    private synchronized ReactHost obtainSlow(@NonNull final String bundlePath) {
+        final Entry current = active;
+        if (current != null && current.bundlePath.equals(bundlePath)) {
+            return current.host;
+        }
+        final Entry next = pending;
+        if (next != null && next.bundlePath.equals(bundlePath) && next.ready) {
+            switchTo(next);
+            return next.host;
+        }
+        if (current != null) {
+            // Switch at a later navigation; no surface waits for a cold host.
+            prepare(bundlePath);
+            return current.host;
+        }
+        final Entry created = new Entry(bundlePath, factory.create(bundlePath));
+        live.put(created.host, created);
+        active = created;
+        return created.host;
+    }
+
+    /**
+     * Creates and starts the host for {@code bundlePath} in the background, unless it is already
+     * active or pending. Deferred while the live-host cap is reached. A no-op before the first
+     * host exists: the first {@link #obtain} creates it for the then current bundle.
+     */
+    synchronized void prepare(@NonNull final String bundlePath) {
+        if (active == null || active.bundlePath.equals(bundlePath)) {
+            return;
+        }
+        if (pending != null) {
+            if (pending.bundlePath.equals(bundlePath)) {
+                return;
+            }
+            // Superseded before it was used.
+            destroy(pending);
+            pending = null;
+        }
+        if (live.size() >= maxLiveHosts) {
+            deferredPath = bundlePath;
+            return;
+        }
+        deferredPath = null;
+        final Entry entry = new Entry(bundlePath, null);
+        pending = entry;
+        ChoicelyRNConfig.getBackgroundExecutor().execute(() -> build(entry));
+    }
+
+    /**
+     * A surface was mounted on {@code host}.
+     */
+    synchronized void acquire(@NonNull final ReactHost host) {
+        final Entry entry = live.get(host);
+        if (entry != null) {
+            entry.surfaces++;
+        }
+    }
+
+    /**
+     * A surface on {@code host} was destroyed. Destroys the host if it has been replaced and this
+     * was its last surface.
+     */
+    synchronized void release(@NonNull final ReactHost host) {
+        final Entry entry = live.get(host);
+        if (entry == null) {
+            return;
+        }
+        entry.surfaces = Math.max(0, entry.surfaces - 1);
+        if (entry.retired && entry.surfaces == 0) {
+            destroy(entry);
+            if (deferredPath != null) {
+                prepare(deferredPath);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    synchronized int liveCount() {
+        return live.size();
+    }
+
+    private void build(@NonNull final Entry entry) {
+        final ReactHost host;
+        try {
+            host = factory.create(entry.bundlePath);
+        } catch (Exception e) {
+            QLog.e(e, TAG, "Creating React host failed: " + entry.bundlePath);
+            synchronized (this) {
+                if (pending == entry) {
+                    pending = null;
+                }
+            }
+            return;
+        }
+        synchronized (this) {
+            if (pending != entry) {
+                host.destroy("Superseded before use", null);
+                return;
+            }
+            entry.host = host;
+            live.put(host, entry);
+        }
+        ChoicelyReactWarmup.startHost(host, () -> {
+            synchronized (this) {
+                entry.ready = true;
+            }
+        }, () -> {
+            synchronized (this) {
+                // Destroyed by React Native; a later prepare() may try again.
+                live.remove(host);
+                if (pending == entry) {
+                    pending = null;
+                }
+            }
+        });
+    }
+
+    private void switchTo(@NonNull final Entry next) {
+        final Entry previous = active;
+        active = next;
+        pending = null;
+        if (previous != null) {
+            previous.retired = true;
+            if (previous.surfaces == 0) {
+                destroy(previous);
+            }
+        }
+    }
+
+    private void destroy(@NonNull final Entry entry) {
+        final ReactHost host = entry.host;
+        if (host == null) {
+            return;
+        }
+        live.remove(host);
+        host.destroy("Replaced by a newer bundle", null);
+    }
+
+    private static final class Entry {
+        @NonNull
+        final String bundlePath;
+        @Nullable
+        ReactHost host;
+        int surfaces;
+        boolean ready;
+        boolean retired;
+
+        Entry(@NonNull final String bundlePath, @Nullable final ReactHost host) {
+            this.bundlePath = bundlePath;
+            this.host = host;
+        }
+    }
+}
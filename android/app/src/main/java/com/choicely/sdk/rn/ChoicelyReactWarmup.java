@@ -0,0 +1,239 @@
+package com.choicely.sdk.rn;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.choicely.sdk.service.log.QLog;
+import com.facebook.react.ReactHost;
+import com.facebook.react.ReactInstanceEventListener;
+import com.facebook.react.bridge.ReactContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import kotlin.Unit;
+import kotlin.jvm.functions.Function0;
+
+/**
+ * Creates the ReactHost and evaluates the JS bundle on a background thread, so the first
+ * {@code /rn/<component>} navigation does not pay for it on the main thread.
+ * <p>
+ * Started from {@link ChoicelyRNApplication} when {@code rn_prewarm} is enabled, or on demand by
+ * {@link com.choicely.sdk.rn.factory.MyContentFactory}. The measured warm-up time is remembered
+ * across launches so the splash can bound its length by it ({@link #predictRemainingMs(long, long)})
+ * while it waits for {@link #whenReady()}.
+ */
+public final class ChoicelyReactWarmup {
+    private static final String TAG = "ChoicelyReactWarmup";
+    private static final String PREFS_NAME = "choicely_rn_warmup";
+    private static final String PREFS_WARMUP_MS_KEY = "warmup_ms";
+    /**
+     * Weight of the latest measurement in the remembered warm-up time.
+     */
+    private static final float SMOOTHING = 0.3f;
+    private static final long UNKNOWN_MS = -1;
+
+    public enum State {IDLE, WARMING, READY, FAILED}
+
+    @Nullable
+    private static volatile ChoicelyReactWarmup instance;
+
+    @NonNull
+    private final ChoicelyRNApplication app;
+    @NonNull
+    private final CompletableFuture<Boolean> ready = new CompletableFuture<>();
+    @NonNull
+    private volatile State state = State.IDLE;
+    private volatile long startedAtMs;
+    /**
+     * Remembered warm-up time, read on the warm-up thread so the splash never loads the
+     * preferences on the main thread.
+     */
+    private volatile long expectedMs = UNKNOWN_MS;
+
+    private ChoicelyReactWarmup(@NonNull final ChoicelyRNApplication app) {
+        this.app = app;
+    }
+
+    @NonNull
+    public static ChoicelyReactWarmup get(@NonNull final Context context) {
+        ChoicelyReactWarmup warmup = instance;
+        if (warmup == null) {
+            synchronized (ChoicelyReactWarmup.class) {
+                warmup = instance;
+                if (warmup == null) {
+                    warmup = new ChoicelyReactWarmup((ChoicelyRNApplication) context.getApplicationContext());
+                    instance = warmup;
+                }
+            }
+        }
+        return warmup;
+    }
+
+    /**
+     * @return true if warm-up at launch is enabled via {@code rn_prewarm}.
+     */
+    public static boolean isEnabled(@NonNull final Context context) {
+        return Boolean.parseBoolean(
+                ChoicelyRNConfig.loadValue("rn_prewarm", R.string.choicely_rn_prewarm, context).trim()
+        );
+    }
+
+    /**
+     * Starts warm-up once; later calls are no-ops.
+     */
+    public void start() {
+        synchronized (this) {
+            if (state != State.IDLE) {
+                return;
+            }
+            state = State.WARMING;
+            startedAtMs = SystemClock.elapsedRealtime();
+        }
+        // Not the bundle state executor: warmUp() waits for the bundle path resolved there.
+        ChoicelyRNConfig.getBackgroundExecutor().execute(this::warmUp);
+    }
+
+    @NonNull
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return true once the ReactHost exists and its JS bundle has been evaluated.
+     */
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    /**
+     * @return future completing with true when ready, or false if warm-up failed.
+     */
+    @NonNull
+    public CompletableFuture<Boolean> whenReady() {
+        return ready;
+    }
+
+    /**
+     * Estimate of how much longer warm-up will take, from the time it took on previous launches.
+     * Meant as an upper bound for waiting on {@link #whenReady()}; never reads from disk.
+     *
+     * @param minMs  returned when already ready, not started, or failed.
+     * @param maxMs  upper bound of the estimate, also returned while no earlier time is known.
+     */
+    public long predictRemainingMs(final long minMs, final long maxMs) {
+        if (state != State.WARMING) {
+            return minMs;
+        }
+        final long expected = expectedMs;
+        if (expected == UNKNOWN_MS) {
+            return maxMs;
+        }
+        final long remaining = expected - (SystemClock.elapsedRealtime() - startedAtMs);
+        return Math.max(minMs, Math.min(maxMs, remaining));
+    }
+
+    private void warmUp() {
+        expectedMs = prefs().getLong(PREFS_WARMUP_MS_KEY, UNKNOWN_MS);
+        try {
+            // Off the main thread: wait for the real bundle path rather than warm the asset.
+            app.getReactNativeHost().whenJSBundleFileResolved().join();
+            startHost(app.getReactHost(), this::onReady, this::onFailed);
+        } catch (Exception e) {
+            QLog.e(e, TAG, "React host warm-up failed");
+            onFailed();
+        }
+    }
+
+    /**
+     * Starts {@code host} (loading its bundle) and runs {@code onReady} once its React context
+     * is initialized, right away if it already is. Runs {@code onFailed} instead if the host is
+     * destroyed first, which is how React Native handles a failed instance start or bundle load.
+     */
+    static void startHost(@NonNull final ReactHost host,
+                          @NonNull final Runnable onReady,
+                          @NonNull final Runnable onFailed) {
+        if (host.getCurrentReactContext() != null) {
+            onReady.run();
+            return;
+        }
+        final HostStart start = new HostStart(host, onReady, onFailed);
+        host.addBeforeDestroyListener(start);
+        host.addReactInstanceEventListener(start);
+        host.start();
+    }
+
+    private synchronized void onReady() {
+        if (state == State.READY) {
+            return;
+        }
+        final long elapsed = SystemClock.elapsedRealtime() - startedAtMs;
+        state = State.READY;
+        ready.complete(true);
+        // The preferences were loaded by warmUp(); apply() writes in the background.
+        final long remembered = expectedMs;
+        final long previous = remembered != UNKNOWN_MS ? remembered : elapsed;
+        prefs().edit()
+                .putLong(PREFS_WARMUP_MS_KEY, Math.round(previous + SMOOTHING * (elapsed - previous)))
+                .apply();
+    }
+
+    private synchronized void onFailed() {
+        if (state != State.WARMING) {
+            return;
+        }
+        state = State.FAILED;
+        ready.complete(false);
+    }
+
+    @NonNull
+    private SharedPreferences prefs() {
+        return app.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Settles one {@link #startHost} call exactly once.
+     */
+    private static final class HostStart implements ReactInstanceEventListener, Function0<Unit> {
+        @NonNull
+        private final ReactHost host;
+        @NonNull
+        private final Runnable onReady;
+        @NonNull
+        private final Runnable onFailed;
+        @NonNull
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        HostStart(@NonNull final ReactHost host, @NonNull final Runnable onReady, @NonNull final Runnable onFailed) {
+            this.host = host;
+            this.onReady = onReady;
+            this.onFailed = onFailed;
+        }
+
+        @Override
+        public void onReactContextInitialized(@NonNull final ReactContext context) {
+            host.removeReactInstanceEventListener(this);
+            host.removeBeforeDestroyListener(this);
+            if (settled.compareAndSet(false, true)) {
+                onReady.run();
+            }
+        }
+
+        /**
+         * Before-destroy listener.
+         */
+        @Override
+        public Unit invoke() {
+            host.removeReactInstanceEventListener(this);
+            if (settled.compareAndSet(false, true)) {
+                QLog.e(TAG, "React host destroyed before its bundle loaded");
+                onFailed.run();
+            }
+            return Unit.INSTANCE;
+        }
+    }
+}
@@ -1,142 +1,478 @@
 package com.choicely.sdk.rn;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.choicely.sdk.service.log.QLog;
 
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
 import okhttp3.Call;
-import okhttp3.Callback;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
-import okhttp3.ResponseBody;
+
+import org.brotli.dec.BrotliInputStream;
 
 @SuppressWarnings("ResultOfMethodCallIgnored")
 public final class ChoicelyRemoteBundle {
     private static final String TAG = "ChoicelyRemoteBundle";
-    private static final OkHttpClient HTTP = new OkHttpClient.Builder()
+    private static final String PARTIAL_SUFFIX = ".part";
+    private static final String PARTIAL_META_SUFFIX = ".meta";
+    private static final int HTTP_PARTIAL_CONTENT = 206;
+    private static final int HTTP_NOT_MODIFIED = 304;
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    /**
+     * Encodings we decode ourselves. Setting Accept-Encoding disables OkHttp's transparent gzip,
+     * so the decoder choice stays in {@link #decodedStream(Response)}.
+     */
+    static final String ACCEPT_ENCODING = "br, gzip";
+    static final OkHttpClient HTTP = new OkHttpClient.Builder()
             .connectTimeout(10, TimeUnit.SECONDS)
             .readTimeout(60, TimeUnit.SECONDS)
             .writeTimeout(60, TimeUnit.SECONDS)
             .callTimeout(90, TimeUnit.SECONDS)
             .build();
-    private static final AtomicLong LAST_TOKEN = new AtomicLong(0);
 
     /**
      * Download and commit bundle to destFile.
+     * <p>
+     * Runs on the shared {@link ChoicelyBundleDownloads} executor: an identical request already in
+     * flight is joined instead of started again, and a request for another URL into the same
+     * destFile cancels this one before it can commit.
+     * <p>
+     * Bytes are streamed into a partial file keyed by the URL. If the transfer breaks and the
+     * server gave a validator (ETag or Last-Modified), the partial is kept and the next call
+     * resumes it with {@code Range}/{@code If-Range}. A server that ignores the range (200)
+     * restarts the partial from byte zero.
+     * <p>
+     * If destFile already holds a bundle from the same URL, its sidecar
+     * {@link ChoicelyBundleMetadata} turns the request into a conditional GET
+     * ({@code If-None-Match}/{@code If-Modified-Since}); a 304 keeps the file and counts as success.
+     * <p>
+     * Fresh transfers accept brotli or gzip transport encoding, decoded as a stream straight into
+     * the temp file. Ranges address encoded bytes, so an encoded transfer is not resumable and
+     * resumes always ask for {@code identity}.
      *
      * @param async if true, returns immediately and completes future later.
      *              if false, blocks current thread until done, but still returns a completed future.
      *
-     * @return CompletableFuture<Boolean> true if this call won and committed; false otherwise.
+     * @return CompletableFuture<Boolean> true if the bundle is committed (or still current); false otherwise.
      */
     @NonNull
     public static CompletableFuture<Boolean> download(@NonNull final String url,
                                                       @NonNull final File destFile,
                                                       final boolean async) {
+        return download(url, destFile, async, null);
+    }
+
+    /**
+     * Same as {@link #download(String, File, boolean)}, but the received bytes must hash to
+     * {@code expectedSha256}. The digest is taken inside the copy loop, so checking it costs no
+     * extra read of the bundle; a mismatch discards the file instead of committing it.
+     *
+     * @param expectedSha256 lowercase hex SHA-256, or null to skip the check.
+     */
+    @NonNull
+    public static CompletableFuture<Boolean> download(@NonNull final String url,
+                                                      @NonNull final File destFile,
+                                                      final boolean async,
+                                                      @Nullable final String expectedSha256) {
         if (!async && android.os.Looper.getMainLooper() == android.os.Looper.myLooper()) {
             throw new IllegalStateException("Sync download called on main thread");
         }
-        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        final CompletableFuture<Boolean> future = ChoicelyBundleDownloads.get()
+                .submit(url, destFile, job -> fetch(job, expectedSha256));
+        if (!async) {
+            future.join();
+        }
+        return future;
+    }
+
+    /**
+     * Blocking transfer of {@code job.url} into {@code job.destFile}. Must run inside a
+     * {@link ChoicelyBundleDownloads} task.
+     *
+     * @return true if the bundle was committed or revalidated.
+     */
+    static boolean fetch(@NonNull final ChoicelyBundleDownloads.Job job, @Nullable final String expectedSha256) {
+        return fetch(job, job.url, expectedSha256, null);
+    }
+
+    /**
+     * Like {@link #fetch(ChoicelyBundleDownloads.Job, String)}, but downloads {@code url} (an
+     * alternative artifact for the same destination) and lets {@code check} veto the received
+     * file before it is committed.
+     */
+    static boolean fetch(@NonNull final ChoicelyBundleDownloads.Job job,
+                         @NonNull final String url,
+                         @Nullable final String expectedSha256,
+                         @Nullable final ContentCheck check) {
+        final File destFile = job.destFile;
         final File parent = destFile.getParentFile();
         if (parent != null && !parent.exists() && !parent.mkdirs()) {
             QLog.e(TAG, "Bundle download failed: could not create dir " + parent);
-            future.complete(false);
-            return future;
-        }
-        final long token = System.nanoTime();
-        LAST_TOKEN.set(token);
-        final File tmp = new File(parent, tmpName(destFile.getName(), token));
-        final Request req = new Request.Builder().url(url).get().build();
-        final Call call = HTTP.newCall(req);
-        if (async) {
-            call.enqueue(new Callback() {
-                @Override
-                public void onFailure(@NonNull final Call call, @NonNull final java.io.IOException e) {
-                    QLog.e(e, TAG, "Bundle download failed");
-                    tmp.delete();
-                    future.complete(false);
-                }
-
-                @Override
-                public void onResponse(@NonNull final Call call, @NonNull final Response response) {
-                    handleResponse(response, tmp, destFile, token, future);
-                }
-            });
-            return future;
+            return false;
         }
+        final File partial = new File(parent, partialName(destFile.getName(), url));
+        Transfer transfer = new Transfer(job, url, partial, expectedSha256, check);
+        Outcome outcome = transfer(transfer);
+        if (outcome == Outcome.RESTART) {
+            // Partial is longer than (or unrelated to) the current resource: start over once.
+            transfer = new Transfer(job, url, partial, expectedSha256, check);
+            outcome = transfer(transfer);
+        }
+        return outcome == Outcome.COMMITTED;
+    }
+
+    @NonNull
+    private static Outcome transfer(@NonNull final Transfer transfer) {
+        final Call call = HTTP.newCall(transfer.newRequest());
+        transfer.job.attach(call);
         try (Response response = call.execute()) {
-            handleResponse(response, tmp, destFile, token, future);
+            return handleResponse(response, transfer);
         } catch (Exception e) {
+            if (transfer.job.isCancelled()) {
+                transfer.discard();
+                return Outcome.FAILED;
+            }
             QLog.e(e, TAG, "Bundle download failed");
-            tmp.delete();
-            future.complete(false);
+            transfer.fail();
+            return Outcome.FAILED;
         }
-        return future;
     }
 
-    private static void handleResponse(@NonNull final Response response,
-                                       @NonNull final File tmp,
-                                       @NonNull final File destFile,
-                                       final long token,
-                                       @NonNull final CompletableFuture<Boolean> future) {
-        try (response) {
-            if (!response.isSuccessful()) {
-                QLog.e(TAG, "Bundle download failed: HTTP " + response.code());
-                tmp.delete();
-                future.complete(false);
-                return;
+    @NonNull
+    private static Outcome handleResponse(@NonNull final Response response,
+                                          @NonNull final Transfer transfer) throws Exception {
+        final int code = response.code();
+        if (code == HTTP_NOT_MODIFIED && transfer.conditional != null) {
+            return Outcome.COMMITTED;
+        }
+        if (code == HTTP_RANGE_NOT_SATISFIABLE && transfer.offset > 0) {
+            transfer.discard();
+            return Outcome.RESTART;
+        }
+        if (!response.isSuccessful()) {
+            QLog.e(TAG, "Bundle download failed: HTTP " + code);
+            transfer.fail();
+            return Outcome.FAILED;
+        }
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        final boolean encoded = isEncoded(response);
+        final boolean append;
+        if (code == HTTP_PARTIAL_CONTENT) {
+            if (!transfer.acceptsContentRange(response.header("Content-Range"))) {
+                QLog.e(TAG, "Bundle download failed: unexpected Content-Range " + response.header("Content-Range"));
+                transfer.discard();
+                return Outcome.FAILED;
             }
-            final ResponseBody body = response.body();
-            try (final InputStream in = body.byteStream();
-                 final FileOutputStream out = new FileOutputStream(tmp, false)) {
-                final byte[] buf = new byte[64 * 1024];
-                int n;
-                while ((n = in.read(buf)) != -1) {
-                    out.write(buf, 0, n);
-                }
-                out.getFD().sync();
+            if (encoded) {
+                QLog.e(TAG, "Bundle download failed: encoded range response");
+                transfer.discard();
+                return Outcome.FAILED;
             }
-            if (LAST_TOKEN.get() != token) {
-                tmp.delete();
-                future.complete(false);
-                return;
+            append = true;
+            digestPrefix(transfer.tmp, transfer.offset, digest);
+        } else {
+            // Server ignored the range or the validator changed: full body follows.
+            append = false;
+            transfer.writeValidator(encoded ? null : validatorOf(response));
+        }
+        long length = append ? transfer.offset : 0;
+        try (final InputStream in = decodedStream(response);
+             final FileOutputStream out = new FileOutputStream(transfer.tmp, append)) {
+            final byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                if (transfer.job.isCancelled()) {
+                    // Superseded by another version; stop now rather than after the full body.
+                    transfer.discard();
+                    return Outcome.FAILED;
+                }
+                out.write(buf, 0, n);
+                digest.update(buf, 0, n);
+                length += n;
             }
+            out.getFD().sync();
+        }
+        final String sha256 = ChoicelyBundleMetadata.toHex(digest.digest(), 32);
+        if (transfer.expectedSha256 != null && !transfer.expectedSha256.equals(sha256)) {
+            QLog.e(TAG, "Bundle download failed: digest mismatch, expected "
+                    + transfer.expectedSha256 + " got " + sha256);
+            transfer.discard();
+            return Outcome.FAILED;
+        }
+        if (transfer.check != null && !transfer.check.accept(transfer.tmp)) {
+            QLog.e(TAG, "Bundle download rejected by content check: " + transfer.url);
+            transfer.discard();
+            return Outcome.FAILED;
+        }
+        final File destFile = transfer.job.destFile;
+        final boolean committed = transfer.job.commit(() -> {
+            ChoicelyBundleMetadata.delete(destFile);
             if (destFile.exists() && !destFile.delete()) {
                 QLog.e(TAG, "Bundle download failed: could not delete old file " + destFile);
-                tmp.delete();
-                future.complete(false);
+                return false;
+            }
+            if (!transfer.tmp.renameTo(destFile)) {
+                QLog.e(TAG, "Bundle download failed: rename failed " + transfer.tmp + " -> " + destFile);
+                return false;
+            }
+            return true;
+        });
+        if (!committed) {
+            if (transfer.job.isCancelled()) {
+                transfer.discard();
+            } else {
+                transfer.fail();
+            }
+            return Outcome.FAILED;
+        }
+        transfer.committed();
+        new ChoicelyBundleMetadata(
+                transfer.url,
+                response.header("ETag"),
+                response.header("Last-Modified"),
+                length,
+                sha256
+        ).write(destFile);
+        return Outcome.COMMITTED;
+    }
+
+    private static boolean isEncoded(@NonNull final Response response) {
+        final String encoding = response.header("Content-Encoding");
+        return encoding != null && !encoding.isEmpty() && !"identity".equalsIgnoreCase(encoding);
+    }
+
+    /**
+     * Response body with any transport encoding (see {@link #ACCEPT_ENCODING}) removed.
+     *
+     * @throws IOException if the server picked an encoding we did not offer.
+     */
+    @NonNull
+    static InputStream decodedStream(@NonNull final Response response) throws IOException {
+        final InputStream raw = response.body().byteStream();
+        final String encoding = response.header("Content-Encoding");
+        if (encoding == null || encoding.isEmpty() || "identity".equalsIgnoreCase(encoding)) {
+            return raw;
+        }
+        if ("br".equalsIgnoreCase(encoding)) {
+            return new BrotliInputStream(raw);
+        }
+        if ("gzip".equalsIgnoreCase(encoding)) {
+            return new GZIPInputStream(raw, 64 * 1024);
+        }
+        raw.close();
+        throw new IOException("Unsupported Content-Encoding " + encoding);
+    }
+
+    /**
+     * Strong validator for {@code If-Range}. Weak ETags are not allowed there, so those fall back
+     * to Last-Modified.
+     */
+    @Nullable
+    private static String validatorOf(@NonNull final Response response) {
+        final String etag = response.header("ETag");
+        if (etag != null && !etag.isEmpty() && !etag.startsWith("W/")) {
+            return etag;
+        }
+        final String lastModified = response.header("Last-Modified");
+        if (lastModified != null && !lastModified.isEmpty()) {
+            return lastModified;
+        }
+        return null;
+    }
+
+    private static void digestPrefix(@NonNull final File file,
+                                     final long length,
+                                     @NonNull final MessageDigest digest) throws IOException {
+        try (final InputStream in = new FileInputStream(file)) {
+            final byte[] buf = new byte[64 * 1024];
+            long remaining = length;
+            while (remaining > 0) {
+                final int n = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+                if (n < 0) {
+                    throw new EOFException("Partial bundle shorter than expected");
+                }
+                digest.update(buf, 0, n);
+                remaining -= n;
+            }
+        }
+    }
+
+    @NonNull
+    private static String partialName(@NonNull final String baseName, @NonNull final String url) {
+        return baseName + "." + urlKey(url) + PARTIAL_SUFFIX;
+    }
+
+    @NonNull
+    private static String urlKey(@NonNull final String url) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(StandardCharsets.UTF_8));
+            return ChoicelyBundleMetadata.toHex(digest, 8);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+
+    /**
+     * Last look at a fully received, digest-checked file before it replaces the destination.
+     */
+    public interface ContentCheck {
+        boolean accept(@NonNull File file);
+    }
+
+    private enum Outcome {
+        COMMITTED,
+        FAILED,
+        RESTART
+    }
+
+    /**
+     * State of one download attempt: where bytes go, where they are resumed from and how the
+     * partial file is cleaned up.
+     */
+    private static final class Transfer {
+        @NonNull
+        final ChoicelyBundleDownloads.Job job;
+        @NonNull
+        final String url;
+        @NonNull
+        final File tmp;
+        @NonNull
+        final File meta;
+        final long offset;
+        @Nullable
+        final String validator;
+        /**
+         * Metadata of the committed bundle used for a conditional request, or null if the request
+         * is unconditional.
+         */
+        @Nullable
+        final ChoicelyBundleMetadata conditional;
+        @Nullable
+        final String expectedSha256;
+        @Nullable
+        final ContentCheck check;
+
+        Transfer(@NonNull final ChoicelyBundleDownloads.Job job,
+                 @NonNull final String url,
+                 @NonNull final File tmp,
+                 @Nullable final String expectedSha256,
+                 @Nullable final ContentCheck check) {
+            this.job = job;
+            this.url = url;
+            this.tmp = tmp;
+            this.expectedSha256 = expectedSha256;
+            this.check = check;
+            this.meta = new File(tmp.getParentFile(), tmp.getName() + PARTIAL_META_SUFFIX);
+            final String storedValidator = readValidator();
+            final long length = tmp.isFile() ? tmp.length() : 0;
+            if (storedValidator != null && length > 0) {
+                this.validator = storedValidator;
+                this.offset = length;
+            } else {
+                this.validator = null;
+                this.offset = 0;
+            }
+            final ChoicelyBundleMetadata committed = offset == 0 ? ChoicelyBundleMetadata.read(job.destFile) : null;
+            this.conditional = committed != null
+                    && committed.describes(job.destFile)
+                    && committed.canRevalidate(url)
+                    && (expectedSha256 == null || expectedSha256.equals(committed.sha256))
+                    ? committed
+                    : null;
+        }
+
+        @NonNull
+        Request newRequest() {
+            final Request.Builder builder = new Request.Builder().url(url).get();
+            if (offset > 0 && validator != null) {
+                builder.header("Range", "bytes=" + offset + "-");
+                builder.header("If-Range", validator);
+                builder.header("Accept-Encoding", "identity");
+                return builder.build();
+            }
+            builder.header("Accept-Encoding", ACCEPT_ENCODING);
+            if (conditional != null) {
+                if (conditional.etag != null) {
+                    builder.header("If-None-Match", conditional.etag);
+                }
+                if (conditional.lastModified != null) {
+                    builder.header("If-Modified-Since", conditional.lastModified);
+                }
+            }
+            return builder.build();
+        }
+
+        boolean acceptsContentRange(@Nullable final String contentRange) {
+            return offset > 0 && contentRange != null && contentRange.startsWith("bytes " + offset + "-");
+        }
+
+        void writeValidator(@Nullable final String newValidator) throws IOException {
+            if (newValidator == null) {
+                meta.delete();
                 return;
             }
-            if (!tmp.renameTo(destFile)) {
-                QLog.e(TAG, "Bundle download failed: rename failed " + tmp + " -> " + destFile);
+            ChoicelyFiles.writeBytes(meta, newValidator.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Keeps the partial for the next attempt when it can be resumed; otherwise removes it.
+         */
+        void fail() {
+            if (!meta.isFile()) {
                 tmp.delete();
-                future.complete(false);
-                return;
             }
-            future.complete(true);
-        } catch (Exception e) {
-            QLog.e(e, TAG, "Bundle download failed");
+        }
+
+        void discard() {
             tmp.delete();
-            future.complete(false);
+            meta.delete();
         }
-    }
 
-    @NonNull
-    private static String tmpName(@NonNull final String baseName, final long token) {
-        return baseName
-                + "."
-                + Integer.toHexString(ThreadLocalRandom.current().nextInt())
-                + "-"
-                + Long.toHexString(token)
-                + ".tmp";
+        /**
+         * Drops the validator and any stale partials left behind by earlier versions of this bundle.
+         */
+        void committed() {
+            meta.delete();
+            final File destFile = job.destFile;
+            final File parent = destFile.getParentFile();
+            final File[] leftovers = parent != null ? parent.listFiles((dir, name) ->
+                    name.startsWith(destFile.getName() + ".")
+                            && (name.endsWith(PARTIAL_SUFFIX) || name.endsWith(PARTIAL_SUFFIX + PARTIAL_META_SUFFIX))
+            ) : null;
+            if (leftovers == null) {
+                return;
+            }
+            for (File f : leftovers) {
+                f.delete();
+            }
+        }
+
+        @Nullable
+        private String readValidator() {
+            if (!meta.isFile()) {
+                return null;
+            }
+            try {
+                final String value = new String(ChoicelyFiles.readBytes(meta), StandardCharsets.UTF_8).trim();
+                return value.isEmpty() ? null : value;
+            } catch (IOException e) {
+                return null;
+            }
+        }
     }
 }
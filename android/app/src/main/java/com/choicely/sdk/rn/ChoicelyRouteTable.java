@@ -0,0 +1,277 @@
+package com.choicely.sdk.rn;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.choicely.sdk.util.engine.ChoicelyUtil;
+import com.choicely.sdk.util.engine.LinkEngine;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Internal link routing shared by the deep link activity and the content factory.
+ * <p>
+ * Routes are path patterns such as {@code rn/{component}}: literal segments and {@code {name}}
+ * parameters, compiled into a segment trie when registered. A link matches the longest registered
+ * prefix of its path segments; extra trailing segments are ignored.
+ * <p>
+ * Resolved links are kept in a bounded LRU keyed by the URL string, so a burst of identical links
+ * (e.g. from a notification campaign) is parsed and matched once. The result of
+ * {@link ChoicelyUtil#link} is not cached: it depends on app data, which can refresh at any time.
+ */
+public final class ChoicelyRouteTable {
+    /**
+     * React Native mount: {@code <scheme>://special/rn/<component>}.
+     */
+    public static final String ROUTE_RN = "rn";
+    public static final String PARAM_COMPONENT = "component";
+
+    private static final int CACHE_SIZE = 64;
+
+    private static final ChoicelyRouteTable INSTANCE = new ChoicelyRouteTable();
+
+    static {
+        INSTANCE.register("rn/{" + PARAM_COMPONENT + "}", ROUTE_RN);
+    }
+
+    /**
+     * Guarded by {@code this}.
+     */
+    private final Node root = new Node();
+    /**
+     * Access-ordered, guarded by itself.
+     */
+    private final LinkedHashMap<String, Resolved> cache = new LinkedHashMap<String, Resolved>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Resolved> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private ChoicelyRouteTable() {
+    }
+
+    @NonNull
+    public static ChoicelyRouteTable get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Adds a route. A later registration of the same pattern replaces the earlier one.
+     *
+     * @param pattern   path segments separated by "/", where {@code {name}} captures one segment.
+     * @param routeName reported as {@link Resolved#getRouteName()} for matching links.
+     */
+    public void register(@NonNull final String pattern, @NonNull final String routeName) {
+        synchronized (this) {
+            Node node = root;
+            for (final String segment : pattern.split("/")) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                if (segment.length() > 2 && segment.startsWith("{") && segment.endsWith("}")) {
+                    final String name = segment.substring(1, segment.length() - 1);
+                    if (node.param == null) {
+                        node.param = new Node();
+                        node.paramName = name;
+                    } else if (!name.equals(node.paramName)) {
+                        throw new IllegalArgumentException("Conflicting parameter {" + name + "} in " + pattern);
+                    }
+                    node = node.param;
+                } else {
+                    Node child = node.literals.get(segment);
+                    if (child == null) {
+                        child = new Node();
+                        node.literals.put(segment, child);
+                    }
+                    node = child;
+                }
+            }
+            node.routeName = routeName;
+        }
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * @return the route match for {@code url}; cached.
+     */
+    @NonNull
+    public Resolved resolve(@NonNull final String url) {
+        synchronized (cache) {
+            final Resolved cached = cache.get(url);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final Resolved resolved = match(url);
+        synchronized (cache) {
+            final Resolved raced = cache.get(url);
+            if (raced != null) {
+                return raced;
+            }
+            cache.put(url, resolved);
+        }
+        return resolved;
+    }
+
+    @NonNull
+    private Resolved match(@NonNull final String url) {
+        final Uri uri = Uri.parse(url);
+        final List<String> segments = uri != null ? uri.getPathSegments() : null;
+        String routeName = null;
+        Map<String, String> params = Collections.emptyMap();
+        if (segments != null && !segments.isEmpty()) {
+            final Map<String, String> captured = new HashMap<>();
+            synchronized (this) {
+                Node node = root;
+                for (final String segment : segments) {
+                    Node next = node.literals.get(segment);
+                    if (next == null && node.param != null && !TextUtils.isEmpty(segment)) {
+                        next = node.param;
+                        captured.put(node.paramName, segment);
+                    }
+                    if (next == null) {
+                        break;
+                    }
+                    node = next;
+                    if (node.routeName != null) {
+                        routeName = node.routeName;
+                        params = new HashMap<>(captured);
+                    }
+                }
+            }
+        }
+        final Map<String, String> query = new LinkedHashMap<>();
+        final Set<String> queryKeys = uri != null ? uri.getQueryParameterNames() : null;
+        if (queryKeys != null) {
+            for (final String key : queryKeys) {
+                if (TextUtils.isEmpty(key)) continue;
+                final String value = uri.getQueryParameter(key);
+                if (value != null) {
+                    query.put(key, value);
+                }
+            }
+        }
+        return new Resolved(url, routeName, Collections.unmodifiableMap(params), Collections.unmodifiableMap(query));
+    }
+
+    private static final class Node {
+        final Map<String, Node> literals = new HashMap<>();
+        @Nullable
+        Node param;
+        @Nullable
+        String paramName;
+        @Nullable
+        String routeName;
+    }
+
+    /**
+     * Immutable result of resolving one URL.
+     */
+    public static final class Resolved {
+        @NonNull
+        private final String url;
+        @Nullable
+        private final String routeName;
+        @NonNull
+        private final Map<String, String> params;
+        @NonNull
+        private final Map<String, String> query;
+
+        Resolved(@NonNull final String url,
+                 @Nullable final String routeName,
+                 @NonNull final Map<String, String> params,
+                 @NonNull final Map<String, String> query) {
+            this.url = url;
+            this.routeName = routeName;
+            this.params = params;
+            this.query = query;
+        }
+
+        /**
+         * @return the name the matching route was registered with, or null if no route matched.
+         */
+        @Nullable
+        public String getRouteName() {
+            return routeName;
+        }
+
+        @Nullable
+        public String getParam(@NonNull final String name) {
+            return params.get(name);
+        }
+
+        /**
+         * Query parameters, first value per key, in URL order.
+         */
+        @NonNull
+        public Map<String, String> getQuery() {
+            return query;
+        }
+
+        /**
+         * Query parameters as a new Bundle of strings, e.g. React props.
+         */
+        @NonNull
+        public Bundle queryToBundle() {
+            final Bundle bundle = new Bundle();
+            for (final Map.Entry<String, String> e : query.entrySet()) {
+                bundle.putString(e.getKey(), e.getValue());
+            }
+            return bundle;
+        }
+
+        /**
+         * Runs {@link ChoicelyUtil#link} for this URL against the current app data. Not cached, so
+         * call it once per use.
+         */
+        @NonNull
+        public Link link() {
+            final LinkEngine engine = ChoicelyUtil.link(url);
+            final Bundle data = engine.getData();
+            return new Link(engine.getType(), data != null ? new Bundle(data) : new Bundle());
+        }
+    }
+
+    /**
+     * Content type and link data of one {@link Resolved#link()} call.
+     */
+    public static final class Link {
+        @Nullable
+        private final String type;
+        @NonNull
+        private final Bundle data;
+
+        Link(@Nullable final String type, @NonNull final Bundle data) {
+            this.type = type;
+            this.data = data;
+        }
+
+        /**
+         * @return the Choicely content type of the link.
+         */
+        @Nullable
+        public String getType() {
+            return type;
+        }
+
+        /**
+         * @return the link data; owned by the caller.
+         */
+        @NonNull
+        public Bundle getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.choicely.sdk.rn;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code NativeModules.ChoicelySegments}: hands bundle segments to the base bundle that runs them
+ * (see {@code rn/src/segments.js}).
+ */
+public class ChoicelySegmentsModule extends ReactContextBaseJavaModule {
+    public static final String NAME = "ChoicelySegments";
+
+    @NonNull
+    private final String bundlePath;
+
+    public ChoicelySegmentsModule(@NonNull final ReactApplicationContext context, @NonNull final String bundlePath) {
+        super(context);
+        this.bundlePath = bundlePath;
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Map<String, Object> getConstants() {
+        final Map<String, Object> constants = new HashMap<>();
+        constants.put("enabled", ChoicelyBundleSegments.get(getReactApplicationContext()).isEnabled());
+        return constants;
+    }
+
+    /**
+     * Resolves with the segment source, or null if it could not be fetched. Waits for a download
+     * MyContentFactory has usually already started, without holding the JS thread; the component
+     * shows its loading state meanwhile.
+     */
+    @ReactMethod
+    public void load(@NonNull final String componentName, @NonNull final Promise promise) {
+        ChoicelyBundleSegments.get(getReactApplicationContext())
+                .load(bundlePath, componentName)
+                .whenComplete((source, e) -> promise.resolve(source));
+    }
+}
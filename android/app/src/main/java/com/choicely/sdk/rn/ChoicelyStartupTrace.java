@@ -0,0 +1,461 @@
+package com.choicely.sdk.rn;
+
+import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.choicely.sdk.service.log.QLog;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cold-start phase tracing.
+ * <p>
+ * Phases are timed with {@link SystemClock#elapsedRealtimeNanos()} into a fixed-size buffer
+ * ({@link #begin}/{@link #end}, {@link #instant}). The launch ends at the first RN surface
+ * ({@link #finishLaunch}); it is then tagged with app / SDK / bundle versions and kept in a ring
+ * buffer of the last {@value #MAX_LAUNCHES} launches under {@code files/choicely_rn_trace/}.
+ * Launches can be read with {@link #getLaunches} or exported as JSON or as a Chrome trace
+ * (chrome://tracing, Perfetto).
+ */
+public final class ChoicelyStartupTrace {
+    private static final String TAG = "ChoicelyStartupTrace";
+    private static final String TRACE_DIR = "choicely_rn_trace";
+    private static final String LAUNCHES_FILE = "launches.json";
+    private static final int MAX_LAUNCHES = 10;
+    private static final int MAX_PHASES = 64;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final long NANOS_PER_MICRO = 1_000L;
+
+    public static final String PHASE_PROCESS_START = "process_start";
+    public static final String PHASE_APPLICATION_CREATE = "application_create";
+    public static final String PHASE_CONFIG_PARSE = "config_parse";
+    public static final String PHASE_CHOICELY_SDK_INIT = "choicely_sdk_init";
+    public static final String PHASE_REACT_HOST_CREATE = "react_host_create";
+    public static final String PHASE_BUNDLE_LOAD = "bundle_load";
+    public static final String PHASE_SURFACE_CREATE = "surface_create";
+
+    /**
+     * Token for a phase that is not recorded (no launch open, or the buffer is full).
+     */
+    public static final int NO_PHASE = -1;
+
+    private static final Object LOCK = new Object();
+    // Guarded by LOCK.
+    private static final String[] names = new String[MAX_PHASES];
+    private static final String[] threads = new String[MAX_PHASES];
+    private static final long[] starts = new long[MAX_PHASES];
+    private static final long[] ends = new long[MAX_PHASES];
+    private static int phaseCount;
+    private static boolean launchOpen;
+    private static long launchStartNs;
+    private static long launchWallMs;
+    @Nullable
+    private static List<Launch> launches;
+
+    private ChoicelyStartupTrace() {
+    }
+
+    /**
+     * Opens a new launch trace. Called first thing in {@link ChoicelyRNApplication#onCreate()};
+     * the time from process start until then is recorded as {@link #PHASE_PROCESS_START}.
+     */
+    public static void beginLaunch() {
+        final long now = SystemClock.elapsedRealtimeNanos();
+        synchronized (LOCK) {
+            phaseCount = 0;
+            launchOpen = true;
+            launchWallMs = System.currentTimeMillis();
+            launchStartNs = Process.getStartElapsedRealtime() * NANOS_PER_MILLI;
+            if (launchStartNs <= 0 || launchStartNs > now) {
+                launchStartNs = now;
+            }
+            record(PHASE_PROCESS_START, launchStartNs, now);
+        }
+    }
+
+    /**
+     * Starts a phase on the calling thread.
+     *
+     * @return token for {@link #end}, or {@link #NO_PHASE}.
+     */
+    public static int begin(@NonNull final String name) {
+        final long now = SystemClock.elapsedRealtimeNanos();
+        synchronized (LOCK) {
+            if (!launchOpen || phaseCount >= MAX_PHASES) {
+                return NO_PHASE;
+            }
+            return record(name, now, -1);
+        }
+    }
+
+    public static void end(final int token) {
+        if (token == NO_PHASE) {
+            return;
+        }
+        final long now = SystemClock.elapsedRealtimeNanos();
+        synchronized (LOCK) {
+            if (launchOpen && token < phaseCount && ends[token] < 0) {
+                ends[token] = now;
+            }
+        }
+    }
+
+    /**
+     * Records a zero-length marker.
+     */
+    public static void instant(@NonNull final String name) {
+        end(begin(name));
+    }
+
+    /**
+     * Closes the launch trace (first surface shown) and stores it. Later calls are no-ops until
+     * the next {@link #beginLaunch()}.
+     * <p>
+     * Called on the main thread, so only the phase timestamps are taken here; the metadata
+     * (bundle version, RSS) is gathered on the trace writer thread.
+     */
+    public static void finishLaunch(@NonNull final Context context) {
+        final long now = SystemClock.elapsedRealtimeNanos();
+        final long wallMs;
+        final long totalNs;
+        final List<Phase> phases;
+        synchronized (LOCK) {
+            if (!launchOpen) {
+                return;
+            }
+            launchOpen = false;
+            phases = new ArrayList<>(phaseCount);
+            for (int i = 0; i < phaseCount; i++) {
+                // Phases still open (e.g. a bundle load that outlives the first surface) end here.
+                final long end = ends[i] >= 0 ? ends[i] : now;
+                phases.add(new Phase(names[i], threads[i], starts[i] - launchStartNs, end - starts[i]));
+            }
+            wallMs = launchWallMs;
+            totalNs = now - launchStartNs;
+        }
+        final Context app = context.getApplicationContext();
+        final Thread writer = new Thread(
+                () -> store(app, new Launch(wallMs, totalNs, metadataOf(app), phases)),
+                "choicely-startup-trace"
+        );
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+
+    /**
+     * @return recorded launches, oldest first.
+     */
+    @NonNull
+    public static List<Launch> getLaunches(@NonNull final Context context) {
+        synchronized (LOCK) {
+            return Collections.unmodifiableList(new ArrayList<>(loadLaunches(context)));
+        }
+    }
+
+    /**
+     * Writes all recorded launches as JSON ({@code {"launches":[...]}}) to {@code out}.
+     */
+    public static void exportJson(@NonNull final Context context, @NonNull final File out) throws IOException {
+        try {
+            final JSONArray array = new JSONArray();
+            for (Launch launch : getLaunches(context)) {
+                array.put(launch.toJson());
+            }
+            final JSONObject json = new JSONObject();
+            json.put("launches", array);
+            ChoicelyFiles.writeAtomically(out, json.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Writes all recorded launches in Chrome trace event format to {@code out}; each launch is
+     * shown as its own process.
+     */
+    public static void exportChromeTrace(@NonNull final Context context, @NonNull final File out) throws IOException {
+        try {
+            final JSONArray events = new JSONArray();
+            int pid = 1;
+            for (Launch launch : getLaunches(context)) {
+                final JSONObject processName = new JSONObject();
+                processName.put("name", "process_name");
+                processName.put("ph", "M");
+                processName.put("pid", pid);
+                processName.put("args", new JSONObject().put("name", launch.label()));
+                events.put(processName);
+                final Map<String, Integer> tids = new LinkedHashMap<>();
+                for (Phase phase : launch.phases) {
+                    Integer tid = tids.get(phase.thread);
+                    if (tid == null) {
+                        tid = tids.size() + 1;
+                        tids.put(phase.thread, tid);
+                        final JSONObject threadName = new JSONObject();
+                        threadName.put("name", "thread_name");
+                        threadName.put("ph", "M");
+                        threadName.put("pid", pid);
+                        threadName.put("tid", tid);
+                        threadName.put("args", new JSONObject().put("name", phase.thread));
+                        events.put(threadName);
+                    }
+                    final JSONObject event = new JSONObject();
+                    event.put("name", phase.name);
+                    event.put("cat", "startup");
+                    event.put("ph", "X");
+                    event.put("pid", pid);
+                    event.put("tid", tid);
+                    event.put("ts", phase.startNs / NANOS_PER_MICRO);
+                    event.put("dur", phase.durationNs / NANOS_PER_MICRO);
+                    events.put(event);
+                }
+                pid++;
+            }
+            final JSONObject json = new JSONObject();
+            json.put("traceEvents", events);
+            json.put("displayTimeUnit", "ms");
+            ChoicelyFiles.writeAtomically(out, json.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static int record(@NonNull final String name, final long start, final long end) {
+        final int index = phaseCount++;
+        names[index] = name;
+        threads[index] = Thread.currentThread().getName();
+        starts[index] = start;
+        ends[index] = end;
+        return index;
+    }
+
+    @WorkerThread
+    @NonNull
+    private static Map<String, String> metadataOf(@NonNull final Context context) {
+        final Map<String, String> meta = new LinkedHashMap<>();
+        meta.put("app_version", BuildConfig.VERSION_NAME);
+        meta.put("build_type", BuildConfig.BUILD_TYPE);
+        meta.put("choicely_sdk_version", BuildConfig.CHOICELY_SDK_VERSION);
+        final Context app = context.getApplicationContext();
+        if (app instanceof ChoicelyRNApplication) {
+            final ChoicelyRNHost host = ((ChoicelyRNApplication) app).getReactNativeHost();
+            if (host != null) {
+                final String bundle = host.getJSBundleFile();
+                meta.put("bundle", new File(bundle).getName());
+                // "asset" is read into memory, "file" is memory-mapped.
+                meta.put("bundle_source", bundle.startsWith("assets://") ? "asset" : "file");
+            }
+        }
+        meta.put("bundle_version", ChoicelyRNConfig.getBundleVersion(context));
+        final long rssKb = readRssKb();
+        if (rssKb > 0) {
+            meta.put("rss_kb", Long.toString(rssKb));
+        }
+        return meta;
+    }
+
+    /**
+     * @return the process's resident set size just after the launch, or 0 if unavailable.
+     */
+    private static long readRssKb() {
+        try (final BufferedReader reader = new BufferedReader(new FileReader("/proc/self/status"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // "VmRSS:    123456 kB"
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring(6).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            QLog.e(e, TAG, "Could not read RSS");
+        }
+        return 0;
+    }
+
+    private static void store(@NonNull final Context context, @NonNull final Launch launch) {
+        synchronized (LOCK) {
+            final List<Launch> all = loadLaunches(context);
+            all.add(launch);
+            while (all.size() > MAX_LAUNCHES) {
+                all.remove(0);
+            }
+            try {
+                final JSONArray array = new JSONArray();
+                for (Launch l : all) {
+                    array.put(l.toJson());
+                }
+                ChoicelyFiles.writeAtomically(launchesFile(context), array.toString().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException | JSONException e) {
+                QLog.e(e, TAG, "Could not store startup trace");
+            }
+        }
+    }
+
+    @NonNull
+    private static List<Launch> loadLaunches(@NonNull final Context context) {
+        if (launches != null) {
+            return launches;
+        }
+        final List<Launch> loaded = new ArrayList<>();
+        final File file = launchesFile(context);
+        if (file.isFile()) {
+            try {
+                final JSONArray array = new JSONArray(new String(ChoicelyFiles.readBytes(file), StandardCharsets.UTF_8));
+                for (int i = 0; i < array.length(); i++) {
+                    final JSONObject json = array.optJSONObject(i);
+                    if (json != null) {
+                        loaded.add(Launch.fromJson(json));
+                    }
+                }
+            } catch (IOException | JSONException e) {
+                QLog.e(e, TAG, "Startup trace file unreadable, starting empty");
+            }
+        }
+        launches = loaded;
+        return loaded;
+    }
+
+    @NonNull
+    private static File launchesFile(@NonNull final Context context) {
+        final File dir = new File(context.getApplicationContext().getFilesDir(), TRACE_DIR);
+        if (!dir.isDirectory()) {
+            //noinspection ResultOfMethodCallIgnored
+            dir.mkdirs();
+        }
+        return new File(dir, LAUNCHES_FILE);
+    }
+
+    /**
+     * One recorded cold start.
+     */
+    public static final class Launch {
+        /**
+         * Wall-clock time the launch was traced, for display only.
+         */
+        public final long startedAtMs;
+        /**
+         * Process start to first surface.
+         */
+        public final long totalNs;
+        @NonNull
+        public final Map<String, String> metadata;
+        @NonNull
+        public final List<Phase> phases;
+
+        Launch(final long startedAtMs,
+               final long totalNs,
+               @NonNull final Map<String, String> metadata,
+               @NonNull final List<Phase> phases) {
+            this.startedAtMs = startedAtMs;
+            this.totalNs = totalNs;
+            this.metadata = Collections.unmodifiableMap(metadata);
+            this.phases = Collections.unmodifiableList(phases);
+        }
+
+        /**
+         * @return the first phase called {@code name}, or null.
+         */
+        @Nullable
+        public Phase phase(@NonNull final String name) {
+            for (Phase p : phases) {
+                if (p.name.equals(name)) {
+                    return p;
+                }
+            }
+            return null;
+        }
+
+        @NonNull
+        String label() {
+            return "launch " + startedAtMs + " " + metadata;
+        }
+
+        @NonNull
+        JSONObject toJson() throws JSONException {
+            final JSONObject json = new JSONObject();
+            json.put("started_at_ms", startedAtMs);
+            json.put("total_ns", totalNs);
+            final JSONObject meta = new JSONObject();
+            for (Map.Entry<String, String> e : metadata.entrySet()) {
+                meta.put(e.getKey(), e.getValue());
+            }
+            json.put("metadata", meta);
+            final JSONArray array = new JSONArray();
+            for (Phase p : phases) {
+                final JSONObject phase = new JSONObject();
+                phase.put("name", p.name);
+                phase.put("thread", p.thread);
+                phase.put("start_ns", p.startNs);
+                phase.put("duration_ns", p.durationNs);
+                array.put(phase);
+            }
+            json.put("phases", array);
+            return json;
+        }
+
+        @NonNull
+        static Launch fromJson(@NonNull final JSONObject json) {
+            final Map<String, String> metadata = new LinkedHashMap<>();
+            final JSONObject meta = json.optJSONObject("metadata");
+            if (meta != null) {
+                for (Iterator<String> it = meta.keys(); it.hasNext(); ) {
+                    final String key = it.next();
+                    metadata.put(key, meta.optString(key, ""));
+                }
+            }
+            final List<Phase> phases = new ArrayList<>();
+            final JSONArray array = json.optJSONArray("phases");
+            if (array != null) {
+                for (int i = 0; i < array.length(); i++) {
+                    final JSONObject p = array.optJSONObject(i);
+                    if (p != null) {
+                        phases.add(new Phase(
+                                p.optString("name", ""),
+                                p.optString("thread", ""),
+                                p.optLong("start_ns", 0),
+                                p.optLong("duration_ns", 0)
+                        ));
+                    }
+                }
+            }
+            return new Launch(json.optLong("started_at_ms", 0), json.optLong("total_ns", 0), metadata, phases);
+        }
+    }
+
+    /**
+     * One timed phase; times are relative to process start.
+     */
+    public static final class Phase {
+        @NonNull
+        public final String name;
+        @NonNull
+        public final String thread;
+        public final long startNs;
+        public final long durationNs;
+
+        Phase(@NonNull final String name, @NonNull final String thread, final long startNs, final long durationNs) {
+            this.name = name;
+            this.thread = thread;
+            this.startNs = startNs;
+            this.durationNs = durationNs;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.choicely.sdk.rn;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.TextUtils;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.choicely.sdk.service.log.QLog;
+import com.facebook.react.ReactHost;
+import com.facebook.react.interfaces.fabric.ReactSurface;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pre-rendered React surfaces for frequently opened components.
+ * <p>
+ * Components listed in {@code rn_surface_pool} (comma separated) get one surface each, created
+ * and pre-rendered off screen once the React host is ready, up to {@code rn_surface_pool_size}
+ * surfaces in total. Opening such a component {@link #claim}s the pooled surface: the fragment
+ * attaches its already rendered view and the pool pre-renders a replacement. Surfaces unclaimed
+ * for {@code rn_surface_pool_idle_seconds} are stopped.
+ * <p>
+ * Initial props are fixed when a surface is created and {@link ReactSurface} has no public way to
+ * replace them, so a pooled surface starts with only a surface id. The props of the open that
+ * claims it (e.g. a link's query parameters) go to its JS root through
+ * {@link ChoicelySurfaceProps}; the component renders once without them while pre-rendered, and
+ * again with them when claimed.
+ * <p>
+ * Surfaces are created with the Application context, since they are rendered before any Activity
+ * is around. Pooled components must not need an Activity from their view context (dialogs,
+ * Activity theme attributes); list only components that don't.
+ * <p>
+ * Confined to the main thread.
+ */
+@MainThread
+public final class ChoicelySurfacePool {
+    private static final String TAG = "ChoicelySurfacePool";
+
+    /**
+     * What the pool needs from the app: the host new surfaces run on, surface accounting and host
+     * start-up. Implemented by {@link ChoicelyRNApplication}.
+     */
+    interface Hosts {
+        @NonNull
+        ReactHost getReactHost();
+
+        void onReactSurfaceCreated(@NonNull ReactHost host);
+
+        void onReactSurfaceDestroyed(@NonNull ReactHost host);
+
+        /**
+         * Starts warming the default host, if not already.
+         *
+         * @return future completing with true once it is ready, false if warm-up failed.
+         */
+        @NonNull
+        CompletableFuture<Boolean> warmUp();
+
+        /**
+         * See {@link ChoicelyReactWarmup#startHost}.
+         */
+        void startHost(@NonNull ReactHost host, @NonNull Runnable onReady, @NonNull Runnable onFailed);
+    }
+
+    @NonNull
+    private final Context context;
+    @NonNull
+    private final Hosts hosts;
+    @NonNull
+    private final ChoicelySurfaceProps surfaceProps;
+    @NonNull
+    private final List<String> components;
+    private final int maxSize;
+    private final long idleMs;
+    @NonNull
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    @NonNull
+    private final Runnable evictIdle = this::evictIdle;
+
+    @NonNull
+    private final Map<String, Entry> pooled = new LinkedHashMap<>();
+    /**
+     * Claimed surfaces, until the fragment releases them.
+     */
+    @NonNull
+    private final Map<ReactSurface, Entry> claimed = new HashMap<>();
+    /**
+     * Component -> {hits, misses}.
+     */
+    @NonNull
+    private final Map<String, int[]> counters = new HashMap<>();
+    private boolean started;
+
+    /**
+     * @param components value of {@code rn_surface_pool}.
+     * @param maxSize    value of {@code rn_surface_pool_size}.
+     * @param idleSeconds value of {@code rn_surface_pool_idle_seconds}.
+     */
+    ChoicelySurfacePool(@NonNull final Context context,
+                        @NonNull final Hosts hosts,
+                        @NonNull final ChoicelySurfaceProps surfaceProps,
+                        @Nullable final String components,
+                        @Nullable final String maxSize,
+                        @Nullable final String idleSeconds) {
+        this.context = context.getApplicationContext();
+        this.hosts = hosts;
+        this.surfaceProps = surfaceProps;
+        this.components = parseComponents(components != null ? components : "");
+        this.maxSize = (int) parseLong(maxSize, 2);
+        this.idleMs = 1000L * parseLong(idleSeconds, 300);
+    }
+
+    public boolean isEnabled() {
+        return !components.isEmpty() && maxSize > 0;
+    }
+
+    /**
+     * Warms the React host if needed and fills the pool once it is ready. No-op if disabled.
+     */
+    public void start() {
+        if (started || !isEnabled()) {
+            return;
+        }
+        started = true;
+        hosts.warmUp().thenAccept(ready -> {
+            if (ready) {
+                handler.post(this::fill);
+            }
+        });
+    }
+
+    /**
+     * Takes the pre-rendered surface for {@code componentName} on {@code host}, if there is one,
+     * and starts it. The caller owns the surface until {@link #release}.
+     *
+     * @param props the open's initial props, handed to the surface's JS root through
+     *              {@link ChoicelySurfaceProps}.
+     * @return the surface, or null on a miss (not pooled, not rendered yet, or a replaced host).
+     */
+    @Nullable
+    public ReactSurface claim(@NonNull final ReactHost host,
+                              @NonNull final String componentName,
+                              @NonNull final Bundle props) {
+        final int[] counter = counter(componentName);
+        final Entry entry = pooled.remove(componentName);
+        if (entry == null || entry.host != host || entry.surface.getView() == null) {
+            if (entry != null) {
+                discard(entry);
+            }
+            counter[1]++;
+            if (started) {
+                handler.post(this::fill);
+            }
+            return null;
+        }
+        final ReactSurface surface = entry.surface;
+        counter[0]++;
+        claimed.put(surface, entry);
+        if (!props.isEmpty()) {
+            surfaceProps.deliver(entry.initialProps, props);
+        }
+        surface.start();
+        handler.post(this::fill);
+        return surface;
+    }
+
+    /**
+     * Stops a surface obtained from {@link #claim}, once its fragment is destroyed.
+     */
+    public void release(@NonNull final ReactSurface surface) {
+        final Entry entry = claimed.remove(surface);
+        if (entry != null) {
+            discard(entry);
+        }
+    }
+
+    /**
+     * @return {@link #claim} hits and misses per component since process start.
+     */
+    @NonNull
+    public Map<String, Stats> getStats() {
+        final Map<String, Stats> stats = new LinkedHashMap<>();
+        for (final Map.Entry<String, int[]> e : counters.entrySet()) {
+            stats.put(e.getKey(), new Stats(e.getValue()[0], e.getValue()[1]));
+        }
+        return Collections.unmodifiableMap(stats);
+    }
+
+    private void fill() {
+        final ReactHost host;
+        try {
+            host = hosts.getReactHost();
+        } catch (Exception e) {
+            QLog.e(e, TAG, "Surface pool fill skipped: no React host");
+            return;
+        }
+        if (host.getCurrentReactContext() == null) {
+            // A newly swapped-in host; fill once it has loaded its bundle.
+            hosts.startHost(host, () -> handler.post(this::fill),
+                    () -> QLog.e(TAG, "Surface pool fill skipped: React host failed to start"));
+            return;
+        }
+        // Surfaces of a replaced host would only ever miss.
+        for (final Iterator<Entry> it = pooled.values().iterator(); it.hasNext(); ) {
+            final Entry entry = it.next();
+            if (entry.host != host) {
+                it.remove();
+                discard(entry);
+            }
+        }
+        for (final String component : components) {
+            if (pooled.size() >= maxSize) {
+                break;
+            }
+            if (pooled.containsKey(component)) {
+                continue;
+            }
+            // Application context and only a surface id as props: see the class doc.
+            final Bundle initialProps = surfaceProps.newSurface();
+            final ReactSurface surface = host.createSurface(context, component, initialProps);
+            hosts.onReactSurfaceCreated(host);
+            surface.prerender();
+            pooled.put(component, new Entry(surface, host, initialProps));
+        }
+        handler.removeCallbacks(evictIdle);
+        if (!pooled.isEmpty()) {
+            handler.postDelayed(evictIdle, idleMs);
+        }
+    }
+
+    private void evictIdle() {
+        final long now = SystemClock.elapsedRealtime();
+        long nextDue = Long.MAX_VALUE;
+        for (final Iterator<Entry> it = pooled.values().iterator(); it.hasNext(); ) {
+            final Entry entry = it.next();
+            final long due = entry.pooledAtMs + idleMs;
+            if (due <= now) {
+                it.remove();
+                discard(entry);
+            } else {
+                nextDue = Math.min(nextDue, due);
+            }
+        }
+        if (nextDue != Long.MAX_VALUE) {
+            handler.postDelayed(evictIdle, nextDue - now);
+        }
+    }
+
+    private void discard(@NonNull final Entry entry) {
+        entry.surface.stop();
+        surfaceProps.remove(entry.initialProps);
+        hosts.onReactSurfaceDestroyed(entry.host);
+    }
+
+    @NonNull
+    private int[] counter(@NonNull final String componentName) {
+        int[] counter = counters.get(componentName);
+        if (counter == null) {
+            counter = new int[2];
+            counters.put(componentName, counter);
+        }
+        return counter;
+    }
+
+    @NonNull
+    private static List<String> parseComponents(@NonNull final String value) {
+        final List<String> names = new ArrayList<>();
+        for (final String name : value.split(",")) {
+            final String trimmed = name.trim();
+            if (!trimmed.isEmpty() && !names.contains(trimmed)) {
+                names.add(trimmed);
+            }
+        }
+        return names;
+    }
+
+    private static long parseLong(@Nullable final String value, final long fallback) {
+        if (TextUtils.getTrimmedLength(value) <= 0) {
+            return fallback;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    public static final class Stats {
+        public final int hits;
+        public final int misses;
+
+        Stats(final int hits, final int misses) {
+            this.hits = hits;
+            this.misses = misses;
+        }
+    }
+
+    private static final class Entry {
+        @NonNull
+        final ReactSurface surface;
+        @NonNull
+        final ReactHost host;
+        @NonNull
+        final Bundle initialProps;
+        final long pooledAtMs = SystemClock.elapsedRealtime();
+
+        Entry(@NonNull final ReactSurface surface, @NonNull final ReactHost host, @NonNull final Bundle initialProps) {
+            this.surface = surface;
+            this.host = host;
+            this.initialProps = initialProps;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.choicely.sdk.rn;
+
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Props for surfaces that were rendered before anyone opened them (see {@link ChoicelySurfacePool}).
+ * <p>
+ * A pooled surface is created with a single initial prop, {@link #SURFACE_ID_PROP}. When an open
+ * with props claims it, the props are stored here under that id and pushed to JS as a
+ * {@link #EVENT} device event by {@link ChoicelySurfacePropsModule}; the JS root reads them with
+ * {@code useSurfaceProps} ({@code rn/src/surfaceProps.js}), which also asks for them once on
+ * mount in case the event came first.
+ * <p>
+ * Thread-safe: written on the main thread, read on the native modules thread.
+ */
+public final class ChoicelySurfaceProps {
+    /**
+     * Initial prop of a pooled surface; stripped by the JS root before the component sees props.
+     */
+    public static final String SURFACE_ID_PROP = "__choicelySurfaceId";
+    public static final String EVENT = "choicelySurfaceProps";
+
+    private static final ChoicelySurfaceProps INSTANCE = new ChoicelySurfaceProps();
+
+    public interface Listener {
+        void onProps(@NonNull String surfaceId, @NonNull Bundle props);
+    }
+
+    @NonNull
+    private final AtomicInteger nextId = new AtomicInteger();
+    @NonNull
+    private final Map<String, Bundle> props = new ConcurrentHashMap<>();
+    @NonNull
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    ChoicelySurfaceProps() {
+    }
+
+    @NonNull
+    public static ChoicelySurfaceProps get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return initial props for a new pooled surface, carrying a fresh surface id.
+     */
+    @NonNull
+    Bundle newSurface() {
+        final Bundle initial = new Bundle();
+        initial.putString(SURFACE_ID_PROP, "pooled-" + nextId.incrementAndGet());
+        return initial;
+    }
+
+    /**
+     * Hands {@code surfaceProps} to the JS root of the surface created with {@code initialProps}.
+     */
+    void deliver(@NonNull final Bundle initialProps, @NonNull final Bundle surfaceProps) {
+        final String surfaceId = initialProps.getString(SURFACE_ID_PROP);
+        if (surfaceId == null) {
+            return;
+        }
+        final Bundle copy = new Bundle(surfaceProps);
+        props.put(surfaceId, copy);
+        for (final Listener listener : listeners) {
+            listener.onProps(surfaceId, copy);
+        }
+    }
+
+    /**
+     * @return props delivered to {@code surfaceId}, or null if none (yet).
+     */
+    @Nullable
+    public Bundle get(@NonNull final String surfaceId) {
+        return props.get(surfaceId);
+    }
+
+    /**
+     * Forgets the props of a surface that has been stopped.
+     */
+    void remove(@NonNull final Bundle initialProps) {
+        final String surfaceId = initialProps.getString(SURFACE_ID_PROP);
+        if (surfaceId != null) {
+            props.remove(surfaceId);
+        }
+    }
+
+    public void addListener(@NonNull final Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NonNull final Listener listener) {
+        listeners.remove(listener);
+    }
+}
@@ -0,0 +1,59 @@
+package com.choicely.sdk.rn;
+
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * {@code NativeModules.ChoicelySurfaceProps}: delivers the props of a claimed pooled surface to its
+ * JS root (see {@link ChoicelySurfaceProps} and {@code rn/src/surfaceProps.js}).
+ */
+public class ChoicelySurfacePropsModule extends ReactContextBaseJavaModule implements ChoicelySurfaceProps.Listener {
+    public static final String NAME = "ChoicelySurfaceProps";
+
+    public ChoicelySurfacePropsModule(@NonNull final ReactApplicationContext context) {
+        super(context);
+        ChoicelySurfaceProps.get().addListener(this);
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void invalidate() {
+        ChoicelySurfaceProps.get().removeListener(this);
+        super.invalidate();
+    }
+
+    /**
+     * Resolves with the props delivered to {@code surfaceId} so far, or null.
+     */
+    @ReactMethod
+    public void get(@NonNull final String surfaceId, @NonNull final Promise promise) {
+        final Bundle props = ChoicelySurfaceProps.get().get(surfaceId);
+        promise.resolve(props != null ? Arguments.fromBundle(props) : null);
+    }
+
+    @Override
+    public void onProps(@NonNull final String surfaceId, @NonNull final Bundle props) {
+        final ReactApplicationContext context = getReactApplicationContext();
+        if (!context.hasActiveReactInstance()) {
+            // The JS root asks with get() when it mounts.
+            return;
+        }
+        final WritableMap event = Arguments.createMap();
+        event.putString("surfaceId", surfaceId);
+        event.putMap("props", Arguments.fromBundle(props));
+        context.emitDeviceEvent(ChoicelySurfaceProps.EVENT, event);
+    }
+}
@@ -13,6 +13,7 @@ public class DemoApp extends ChoicelyRNApplication {
     @Override
     public void onCreate() {
         super.onCreate();
+        final int trace = ChoicelyStartupTrace.begin(ChoicelyStartupTrace.PHASE_APPLICATION_CREATE);
         final String appKey = this.getAppKey();
         this.initRNEngine(new ChoicelyRNHost(this, appKey) {
             @NonNull
@@ -25,11 +26,14 @@ public class DemoApp extends ChoicelyRNApplication {
         if (TextUtils.getTrimmedLength(appKey) > 0) {
             this.initChoicely(appKey);
         }
+        ChoicelyStartupTrace.end(trace);
     }
 
     private synchronized void initChoicely(@NonNull final String appKey) {
         // Core Choicely SDK bootstrapping with app key
+        final int trace = ChoicelyStartupTrace.begin(ChoicelyStartupTrace.PHASE_CHOICELY_SDK_INIT);
         ChoicelySDK.init(this, appKey);
+        ChoicelyStartupTrace.end(trace);
         // Register custom factories to override default content + splash behavior
         ChoicelySDK.factory().setContentFactory(new MyContentFactory());
         ChoicelySDK.factory().setSplashFactory(new MySplashFactory());
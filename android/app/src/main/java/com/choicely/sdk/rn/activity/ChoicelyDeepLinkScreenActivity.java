@@ -9,8 +9,7 @@ import androidx.annotation.NonNull;
 
 import com.choicely.sdk.activity.ChoicelyIntentKeys;
 import com.choicely.sdk.activity.content.ChoicelyScreenActivity;
-import com.choicely.sdk.util.engine.ChoicelyUtil;
-import com.choicely.sdk.util.engine.LinkEngine;
+import com.choicely.sdk.rn.ChoicelyRouteTable;
 
 public class ChoicelyDeepLinkScreenActivity extends ChoicelyScreenActivity {
 
@@ -35,9 +34,9 @@ public class ChoicelyDeepLinkScreenActivity extends ChoicelyScreenActivity {
             return;
         if (intent.hasExtra(ChoicelyIntentKeys.DATA_BUNDLE)) return;
         final String url = uri.toString();
-        final LinkEngine link = ChoicelyUtil.link(url);
-        final Bundle b = new Bundle();
-        b.putAll(link.getData());
+        // Resolved once per URL and shared with MyContentFactory, which routes the same link next.
+        final ChoicelyRouteTable.Link link = ChoicelyRouteTable.get().resolve(url).link();
+        final Bundle b = link.getData();
         b.putString(ChoicelyIntentKeys.INTERNAL_URL, url);
         intent.putExtra(ChoicelyIntentKeys.DATA_BUNDLE, b);
         final String type = link.getType();
@@ -1,8 +1,17 @@
 package com.choicely.sdk.rn.custom
 
 import android.os.Bundle
+import android.view.LayoutInflater
+import android.view.View
+import android.view.ViewGroup
 import androidx.core.os.bundleOf
+import com.choicely.sdk.rn.ChoicelyRNApplication
+import com.choicely.sdk.rn.ChoicelyStartupTrace
+import com.choicely.sdk.rn.ChoicelySurfacePool
+import com.choicely.sdk.rn.ChoicelySurfaceProps
 import com.facebook.react.ReactFragment
+import com.facebook.react.ReactHost
+import com.facebook.react.interfaces.fabric.ReactSurface
 import com.facebook.react.modules.core.DefaultHardwareBackBtnHandler
 
 /**
@@ -21,6 +30,8 @@ import com.facebook.react.modules.core.DefaultHardwareBackBtnHandler
  *   - [ReactFragment.ARG_LAUNCH_OPTIONS] — initial props Bundle
  *   - [ReactFragment.ARG_DISABLE_HOST_LIFECYCLE_EVENTS] — forces the wrapper to drive lifecycle,
  *     which prevents conflicts when this Fragment lives inside a host Activity we don’t control
+ * - Components kept pre-rendered by [ChoicelySurfacePool] attach the pooled view instead of
+ *   creating a new surface; their props reach JS through [ChoicelySurfaceProps]
  *
  * ## Back press
  * Implements [DefaultHardwareBackBtnHandler]. If JS doesn’t handle the back press,
@@ -56,6 +67,18 @@ object RNFragmentWrapper {
          */
         private lateinit var reactArgs: Bundle
 
+        /**
+         * Host this fragment's surface runs on, reported to [ChoicelyRNApplication] so a host
+         * replaced by a newer bundle is destroyed once its last surface is gone.
+         */
+        private var trackedHost: ReactHost? = null
+
+        /**
+         * Pre-rendered surface taken from [ChoicelySurfacePool], shown instead of a surface
+         * created by the React delegate.
+         */
+        private var pooledSurface: ReactSurface? = null
+
         // ---- args helpers (so you can pass component + props) ----
         companion object {
             /**
@@ -96,7 +119,44 @@ object RNFragmentWrapper {
         override fun onCreate(savedInstanceState: Bundle?) {
             // Overrides Activity arguments with Fragment arguments!
             arguments = reactArgs
+            val trace = ChoicelyStartupTrace.begin(ChoicelyStartupTrace.PHASE_SURFACE_CREATE)
             super.onCreate(savedInstanceState)
+            ChoicelyStartupTrace.end(trace)
+            val host = reactDelegate.reactHost
+            val app = activity?.application as? ChoicelyRNApplication
+            if (host != null && app != null) {
+                app.onReactSurfaceCreated(host)
+                trackedHost = host
+            }
+        }
+
+        /**
+         * Attaches the pooled, already rendered surface for this component when there is one;
+         * otherwise lets [ReactFragment] create and start a surface as usual.
+         */
+        override fun onCreateView(
+            inflater: LayoutInflater,
+            container: ViewGroup?,
+            savedInstanceState: Bundle?
+        ): View? {
+            pooledSurface?.view?.let { view ->
+                (view.parent as? ViewGroup)?.removeView(view)
+                return view
+            }
+            val host = reactDelegate.reactHost
+            val app = activity?.application as? ChoicelyRNApplication
+            val componentName = reactArgs.getString(ARG_COMPONENT_NAME)
+            if (host != null && app != null && componentName != null) {
+                val props = reactArgs.getBundle(ARG_LAUNCH_OPTIONS) ?: Bundle()
+                val surface = app.surfacePool.claim(host, componentName, props)
+                val view = surface?.view
+                if (view != null) {
+                    (view.parent as? ViewGroup)?.removeView(view)
+                    pooledSurface = surface
+                    return view
+                }
+            }
+            return super.onCreateView(inflater, container, savedInstanceState)
         }
 
         /**
@@ -106,6 +166,8 @@ object RNFragmentWrapper {
          */
         override fun onResume() {
             super.onResume()
+            // First surface on screen ends the startup trace (no-op after the first time).
+            context?.let { ChoicelyStartupTrace.finishLaunch(it) }
             if (reactDelegate.reactHost != null) {
                 reactDelegate.reactHost?.onHostResume(context as android.app.Activity, this)
             }
@@ -125,6 +187,14 @@ object RNFragmentWrapper {
         override fun onDestroy() {
             super.onDestroy()
             reactDelegate.onHostDestroy()
+            trackedHost?.let { host ->
+                (activity?.application as? ChoicelyRNApplication)?.onReactSurfaceDestroyed(host)
+            }
+            trackedHost = null
+            pooledSurface?.let { surface ->
+                (activity?.application as? ChoicelyRNApplication)?.surfacePool?.release(surface)
+            }
+            pooledSurface = null
         }
 
         /**
@@ -10,11 +10,11 @@ import androidx.fragment.app.Fragment;
 
 import com.choicely.sdk.activity.ChoicelyIntentKeys;
 import com.choicely.sdk.activity.content.factory.ChoicelyContentFragmentFactory;
+import com.choicely.sdk.rn.ChoicelyBundleSegments;
+import com.choicely.sdk.rn.ChoicelyReactWarmup;
+import com.choicely.sdk.rn.ChoicelyRouteTable;
 import com.choicely.sdk.rn.custom.RNFragmentWrapper;
 
-import java.util.Set;
-import java.util.List;
-
 /**
  * App-specific content router that converts Choicely "special" content types
  * into Android {@link Fragment} instances.
@@ -25,9 +25,10 @@ import java.util.List;
  *   <li>Checks the content {@code type}. If it's not {@code "special"}, fall through and let
  *   the default factory chain handle it.</li>
  *   <li>Parses {@link ChoicelyIntentKeys#INTERNAL_URL} from the provided {@link Bundle}.</li>
- *   <li>Interprets path segments to determine a target destination.</li>
+ *   <li>Matches the path against {@link ChoicelyRouteTable} to determine a target destination.</li>
  *   <li>For {@code /rn/<ComponentName>} routes, returns a React Native-backed fragment via
- *   {@link RNFragmentWrapper#newReactFragment(String, Bundle, Bundle)}.</li>
+ *   {@link RNFragmentWrapper#newReactFragment(String, Bundle, Bundle)}. With segmented bundles the
+ *   component's segment download (or cache read) is started here, while the fragment is created.</li>
  * </ol>
  *
  * <h2>Expected URL shapes</h2>
@@ -47,8 +48,8 @@ import java.util.List;
  * </pre>
  *
  * <h2>Extending this router</h2>
- * Add more {@code specialKey} branches (e.g., {@code "web"}, {@code "promo"}, etc.) by
- * reading additional path segments and returning the appropriate Fragment.
+ * Register more routes (e.g., {@code ChoicelyRouteTable.get().register("promo/{id}", "promo")})
+ * and add a branch for the route name that returns the appropriate Fragment.
  */
 public class MyContentFactory extends ChoicelyContentFragmentFactory {
 
@@ -71,34 +72,27 @@ public class MyContentFactory extends ChoicelyContentFragmentFactory {
         final String internalUrl = data.getString(ChoicelyIntentKeys.INTERNAL_URL);
         if (TextUtils.isEmpty(internalUrl)) return null;
 
-        // Parse the URI to inspect its path segments (e.g., /rn/<ComponentName>).
-        final Uri uri = Uri.parse(internalUrl);
-        if (uri == null) return null;
-
-        final List<String> pathSegments = uri.getPathSegments();
-        if (pathSegments == null || pathSegments.isEmpty()) return null;
-
-        // The first segment is the "special key" that selects a sub-router (e.g., "rn").
-        final String specialKey = pathSegments.get(0);
-        if (TextUtils.isEmpty(specialKey)) return null;
+        // Match the path against the route table (e.g., /rn/<ComponentName>). Results are cached per
+        // URL, so a link already seen by ChoicelyDeepLinkScreenActivity is not parsed again.
+        final ChoicelyRouteTable.Resolved route = ChoicelyRouteTable.get().resolve(internalUrl);
 
         // Sub-route: React Native component mount → /rn/<ComponentName>
-        if ("rn".equals(specialKey)) {
-            final String rnComponentName = pathSegments.size() > 1 ? pathSegments.get(1) : null;
+        if (ChoicelyRouteTable.ROUTE_RN.equals(route.getRouteName())) {
+            final String rnComponentName = route.getParam(ChoicelyRouteTable.PARAM_COMPONENT);
             if (TextUtils.isEmpty(rnComponentName)) return null;
 
-            // Props for the RN component (fill this if you want to pass initial props).
-            final Bundle reactProps = new Bundle();
-            final Set<String> queryKeys = uri.getQueryParameterNames();
-            if (queryKeys != null && !queryKeys.isEmpty()) {
-                for (final String key : queryKeys) {
-                    if (TextUtils.isEmpty(key)) continue;
-                    final String value = uri.getQueryParameter(key);
-                    if (value != null) {
-                        reactProps.putString(key, value);
-                    }
-                }
+            // Segmented bundles: fetch this component's segment while the surface is being set up.
+            ChoicelyBundleSegments.get(context).prefetch(rnComponentName);
+
+            // Host not warmed at launch (warm-up off or still running): get host creation and
+            // bundle evaluation going off the main thread while the fragment is created.
+            final ChoicelyReactWarmup warmup = ChoicelyReactWarmup.get(context);
+            if (!warmup.isReady()) {
+                warmup.start();
             }
+
+            // Props for the RN component: the link's query parameters.
+            final Bundle reactProps = route.queryToBundle();
             // Extra fragment args for the wrapper (e.g., flags for lifecycle/back handling).
             final Bundle fragmentArgs = new Bundle();
 
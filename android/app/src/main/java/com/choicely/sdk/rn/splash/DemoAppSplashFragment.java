@@ -1,12 +1,17 @@
 package com.choicely.sdk.rn.splash;
 
+import android.content.Context;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.view.View;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.choicely.sdk.activity.splash.AbstractSplashFragment;
+import com.choicely.sdk.rn.ChoicelyReactWarmup;
 import com.choicely.sdk.rn.R;
 
 /**
@@ -16,7 +21,9 @@ import com.choicely.sdk.rn.R;
  * <ul>
  *   <li>Inflates a static splash layout via {@link #getLayout()}.</li>
  *   <li>Runs custom splash logic in {@link #updateSplash()} right after the view is created.</li>
- *   <li>Controls how long the splash is visible via {@link #getSplashDuration()}.</li>
+ *   <li>Controls how long the splash is visible via {@link #getSplashDuration()}: while the React
+ *   host warms up in the background it stays up until the host reports ready, at most for the
+ *   expected remaining warm-up time capped at {@link #MAX_SPLASH_DURATION_MS}.</li>
  * </ul>
  *
  * <h2>How to customize</h2>
@@ -28,6 +35,15 @@ import com.choicely.sdk.rn.R;
  */
 public class DemoAppSplashFragment extends AbstractSplashFragment {
 
+    private static final long DEFAULT_SPLASH_DURATION_MS = 600L;
+    private static final long MIN_SPLASH_DURATION_MS = 300L;
+    private static final long MAX_SPLASH_DURATION_MS = 2500L;
+
+    @NonNull
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    @NonNull
+    private final Runnable endSplash = this::endSplash;
+
     /**
      * Provides the layout resource ID for the splash screen.
      * <p>
@@ -53,6 +69,13 @@ public class DemoAppSplashFragment extends AbstractSplashFragment {
     protected void onLayoutCreated(@NonNull View layout, @Nullable Bundle savedInstanceState) {
         super.onLayoutCreated(layout, savedInstanceState);
         updateSplash();
+        endSplashWhenReady();
+    }
+
+    @Override
+    public void onDestroyView() {
+        mainHandler.removeCallbacks(endSplash);
+        super.onDestroyView();
     }
 
     /**
@@ -70,16 +93,59 @@ public class DemoAppSplashFragment extends AbstractSplashFragment {
         // Intentionally empty; add animation starts or quick view setup here.
     }
 
+    /**
+     * While the React host warms up, ends the splash as soon as the host reports ready, but not
+     * before {@link #MIN_SPLASH_DURATION_MS}. The SDK's own timer ({@link #getSplashDuration()})
+     * stays as the upper bound when warm-up is slower than predicted or fails.
+     */
+    private void endSplashWhenReady() {
+        final Context context = getContext();
+        if (context == null) {
+            return;
+        }
+        final ChoicelyReactWarmup warmup = ChoicelyReactWarmup.get(context);
+        if (warmup.getState() != ChoicelyReactWarmup.State.WARMING) {
+            return;
+        }
+        final long shownAtMs = SystemClock.elapsedRealtime();
+        warmup.whenReady().thenAccept(ready -> {
+            if (!ready) {
+                return;
+            }
+            final long shownMs = SystemClock.elapsedRealtime() - shownAtMs;
+            mainHandler.postDelayed(endSplash, Math.max(0L, MIN_SPLASH_DURATION_MS - shownMs));
+        });
+    }
+
+    private void endSplash() {
+        if (!isAdded() || isStateSaved()) {
+            return;
+        }
+        getParentFragmentManager().beginTransaction().remove(this).commit();
+    }
+
     /**
      * Controls how long (in milliseconds) the splash stays visible before continuing.
      * <p>
-     * This implementation holds for 600ms, which is a snappy “brand flash” that won’t feel laggy.
-     * Tune to match the length of your splash animation (generally 400–1200ms feels crisp).
+     * Without React host warm-up this holds for 600ms, a snappy “brand flash” that won’t feel laggy.
+     * With warm-up running ({@code rn_prewarm}) the splash covers the warm-up instead and ends
+     * when the host is ready ({@link #endSplashWhenReady()}). The SDK takes the duration up front,
+     * so this is only the upper bound: the remaining time estimated from how long warm-up took on
+     * previous launches, between {@link #MIN_SPLASH_DURATION_MS} and
+     * {@link #MAX_SPLASH_DURATION_MS} ({@link #MAX_SPLASH_DURATION_MS} on the first launch).
      *
      * @return duration in milliseconds for the splash screen.
      */
     @Override
     protected long getSplashDuration() {
-        return 600L;
+        final Context context = getContext();
+        if (context == null) {
+            return DEFAULT_SPLASH_DURATION_MS;
+        }
+        final ChoicelyReactWarmup warmup = ChoicelyReactWarmup.get(context);
+        if (warmup.getState() == ChoicelyReactWarmup.State.IDLE) {
+            return DEFAULT_SPLASH_DURATION_MS;
+        }
+        return warmup.predictRemainingMs(MIN_SPLASH_DURATION_MS, MAX_SPLASH_DURATION_MS);
     }
 }
@@ -0,0 +1,131 @@
+#include "ChoicelyBindingsInstaller.h"
+
+#include <algorithm>
+#include <functional>
+#include <mutex>
+#include <utility>
+#include <vector>
+
+namespace choicely {
+
+namespace jni = facebook::jni;
+namespace jsi = facebook::jsi;
+
+namespace {
+
+using Source = std::function<std::shared_ptr<const Values>()>;
+
+// App data is replaced wholesale from Java; readers take the current snapshot.
+std::mutex appDataMutex;
+std::shared_ptr<const Values> appData = std::make_shared<const Values>();
+
+std::shared_ptr<const Values> currentAppData() {
+  std::lock_guard<std::mutex> lock(appDataMutex);
+  return appData;
+}
+
+std::shared_ptr<const Values> toValues(
+    jni::alias_ref<jni::JArrayClass<jstring>> keys,
+    jni::alias_ref<jni::JArrayClass<jstring>> values) {
+  auto map = std::make_shared<Values>();
+  if (keys && values) {
+    const size_t size = std::min(keys->size(), values->size());
+    map->reserve(size);
+    for (size_t i = 0; i < size; i++) {
+      auto key = keys->getElement(i);
+      auto value = values->getElement(i);
+      if (key && value) {
+        map->emplace(key->toStdString(), value->toStdString());
+      }
+    }
+  }
+  return map;
+}
+
+class ValuesHostObject : public jsi::HostObject {
+ public:
+  explicit ValuesHostObject(Source source) : source_(std::move(source)) {}
+
+  jsi::Value get(jsi::Runtime& rt, const jsi::PropNameID& name) override {
+    const auto values = source_();
+    const auto it = values->find(name.utf8(rt));
+    if (it == values->end()) {
+      return jsi::Value::undefined();
+    }
+    return jsi::String::createFromUtf8(rt, it->second);
+  }
+
+  void set(jsi::Runtime& rt, const jsi::PropNameID& name, const jsi::Value&)
+      override {
+    throw jsi::JSError(
+        rt, "__choicely values are read-only: " + name.utf8(rt));
+  }
+
+  std::vector<jsi::PropNameID> getPropertyNames(jsi::Runtime& rt) override {
+    const auto values = source_();
+    std::vector<jsi::PropNameID> names;
+    names.reserve(values->size());
+    for (const auto& entry : *values) {
+      names.push_back(jsi::PropNameID::forUtf8(rt, entry.first));
+    }
+    return names;
+  }
+
+ private:
+  Source source_;
+};
+
+} // namespace
+
+void ChoicelyBindingsInstaller::registerNatives() {
+  registerHybrid({
+      makeNativeMethod("initHybrid", ChoicelyBindingsInstaller::initHybrid),
+      makeNativeMethod("setAppData", ChoicelyBindingsInstaller::setAppData),
+  });
+}
+
+jni::local_ref<ChoicelyBindingsInstaller::jhybriddata>
+ChoicelyBindingsInstaller::initHybrid(
+    jni::alias_ref<jclass>,
+    jni::alias_ref<jni::JArrayClass<jstring>> keys,
+    jni::alias_ref<jni::JArrayClass<jstring>> values) {
+  return makeCxxInstance(toValues(keys, values));
+}
+
+void ChoicelyBindingsInstaller::setAppData(
+    jni::alias_ref<jclass>,
+    jni::alias_ref<jni::JArrayClass<jstring>> keys,
+    jni::alias_ref<jni::JArrayClass<jstring>> values) {
+  auto next = toValues(keys, values);
+  std::lock_guard<std::mutex> lock(appDataMutex);
+  appData = std::move(next);
+}
+
+facebook::react::ReactInstance::BindingsInstallFunc
+ChoicelyBindingsInstaller::getBindingsInstallFunc() {
+  auto config = config_;
+  return [config](jsi::Runtime& runtime) {
+    // Both host objects are created once per runtime, so `__choicely.config` is the same
+    // object on every read. `__choicely` is a plain frozen object rather than a host object
+    // holding them: jsi values must not outlive their runtime.
+    jsi::Object root(runtime);
+    root.setProperty(
+        runtime,
+        "config",
+        jsi::Object::createFromHostObject(
+            runtime,
+            std::make_shared<ValuesHostObject>([config] { return config; })));
+    root.setProperty(
+        runtime,
+        "appData",
+        jsi::Object::createFromHostObject(
+            runtime, std::make_shared<ValuesHostObject>(&currentAppData)));
+    runtime.global()
+        .getPropertyAsObject(runtime, "Object")
+        .getPropertyAsFunction(runtime, "freeze")
+        .call(runtime, root);
+    runtime.global().setProperty(runtime, "__choicely", std::move(root));
+  };
+}
+
+} // namespace choicely
@@ -0,0 +1,57 @@
+#pragma once
+
+#include <fbjni/fbjni.h>
+#include <jsi/jsi.h>
+#include <react/runtime/jni/JBindingsInstaller.h>
+
+#include <memory>
+#include <string>
+#include <unordered_map>
+
+namespace choicely {
+
+using Values = std::unordered_map<std::string, std::string>;
+
+/**
+ * Installs `global.__choicely` when a React instance starts:
+ *
+ *   __choicely.config   choicely_config.json values (fixed for the host's lifetime)
+ *   __choicely.appData  last known Choicely app custom data (updated from Java at any time)
+ *
+ * Both are read-only host objects, created once per runtime (`__choicely` itself is frozen). A
+ * property read looks the key up in native memory and returns a string (or undefined); nothing
+ * is serialized up front or sent over the bridge.
+ */
+class ChoicelyBindingsInstaller
+    : public facebook::jni::HybridClass<
+          ChoicelyBindingsInstaller,
+          facebook::react::JBindingsInstaller> {
+ public:
+  static constexpr auto kJavaDescriptor =
+      "Lcom/choicely/sdk/rn/ChoicelyBindingsInstaller;";
+
+  static void registerNatives();
+
+  facebook::react::ReactInstance::BindingsInstallFunc getBindingsInstallFunc()
+      override;
+
+ private:
+  friend HybridBase;
+
+  explicit ChoicelyBindingsInstaller(std::shared_ptr<const Values> config)
+      : config_(std::move(config)) {}
+
+  static facebook::jni::local_ref<jhybriddata> initHybrid(
+      facebook::jni::alias_ref<jclass>,
+      facebook::jni::alias_ref<facebook::jni::JArrayClass<jstring>> keys,
+      facebook::jni::alias_ref<facebook::jni::JArrayClass<jstring>> values);
+
+  static void setAppData(
+      facebook::jni::alias_ref<jclass>,
+      facebook::jni::alias_ref<facebook::jni::JArrayClass<jstring>> keys,
+      facebook::jni::alias_ref<facebook::jni::JArrayClass<jstring>> values);
+
+  std::shared_ptr<const Values> config_;
+};
+
+} // namespace choicely
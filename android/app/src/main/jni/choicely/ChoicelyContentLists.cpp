@@ -0,0 +1,213 @@
+#include "ChoicelyContentLists.h"
+
+#include <algorithm>
+#include <mutex>
+#include <unordered_map>
+#include <utility>
+
+namespace choicely {
+
+namespace jni = facebook::jni;
+namespace jsi = facebook::jsi;
+namespace react = facebook::react;
+
+namespace {
+
+// Lists are replaced wholesale from Java; readers take the current snapshot.
+std::mutex listsMutex;
+std::unordered_map<std::string, std::shared_ptr<const ContentList>> lists;
+int64_t nextVersion = 1;
+
+std::shared_ptr<const ContentList> findList(const std::string& listId) {
+  std::lock_guard<std::mutex> lock(listsMutex);
+  const auto it = lists.find(listId);
+  return it != lists.end() ? it->second : nullptr;
+}
+
+void nativePublish(
+    jni::alias_ref<jclass>,
+    jni::alias_ref<jstring> listId,
+    jni::alias_ref<jni::JArrayByte> json,
+    jni::alias_ref<jni::JArrayInt> offsets,
+    jni::alias_ref<jni::JArrayClass<jstring>> numericFields,
+    jni::alias_ref<jni::JArrayDouble> columns) {
+  auto list = std::make_shared<ContentList>();
+  list->json.resize(json->size());
+  json->getRegion(
+      0,
+      static_cast<jsize>(list->json.size()),
+      reinterpret_cast<jbyte*>(list->json.data()));
+  list->offsets.resize(offsets->size());
+  offsets->getRegion(
+      0, static_cast<jsize>(list->offsets.size()), list->offsets.data());
+  for (size_t i = 0; i < numericFields->size(); i++) {
+    list->numericFields.push_back(numericFields->getElement(i)->toStdString());
+  }
+  list->columns.resize(columns->size());
+  columns->getRegion(
+      0, static_cast<jsize>(list->columns.size()), list->columns.data());
+
+  if (list->offsets.empty() || list->offsets.front() != 0 ||
+      !std::is_sorted(list->offsets.begin(), list->offsets.end()) ||
+      static_cast<size_t>(list->offsets.back()) != list->json.size() ||
+      list->columns.size() != list->numericFields.size() * list->size()) {
+    jni::throwNewJavaException(
+        "java/lang/IllegalArgumentException", "Malformed content list");
+  }
+
+  auto key = listId->toStdString();
+  std::lock_guard<std::mutex> lock(listsMutex);
+  list->version = nextVersion++;
+  lists[std::move(key)] = std::move(list);
+}
+
+void nativeRemove(jni::alias_ref<jclass>, jni::alias_ref<jstring> listId) {
+  std::lock_guard<std::mutex> lock(listsMutex);
+  lists.erase(listId->toStdString());
+}
+
+std::string
+stringArg(jsi::Runtime& rt, const jsi::Value* args, size_t count, size_t i) {
+  if (i >= count || !args[i].isString()) {
+    throw jsi::JSError(
+        rt, "ChoicelyContentLists: argument " + std::to_string(i) +
+            " must be a string");
+  }
+  return args[i].getString(rt).utf8(rt);
+}
+
+// Non-numbers and negatives count as 0; the result is clamped to [0, max].
+size_t indexArg(const jsi::Value* args, size_t count, size_t i, size_t max) {
+  if (i >= count || !args[i].isNumber()) {
+    return 0;
+  }
+  const double value = args[i].getNumber();
+  if (!(value > 0)) {
+    return 0;
+  }
+  return value >= static_cast<double>(max) ? max
+                                           : static_cast<size_t>(value);
+}
+
+class ColumnBuffer : public jsi::MutableBuffer {
+ public:
+  ColumnBuffer(const double* values, size_t count)
+      : values_(values, values + count) {}
+
+  size_t size() const override {
+    return values_.size() * sizeof(double);
+  }
+
+  uint8_t* data() override {
+    return reinterpret_cast<uint8_t*>(values_.data());
+  }
+
+ private:
+  std::vector<double> values_;
+};
+
+jsi::Value getInfo(
+    jsi::Runtime& rt,
+    react::TurboModule&,
+    const jsi::Value* args,
+    size_t count) {
+  const auto list = findList(stringArg(rt, args, count, 0));
+  if (!list) {
+    return jsi::Value::null();
+  }
+  jsi::Array fields(rt, list->numericFields.size());
+  for (size_t i = 0; i < list->numericFields.size(); i++) {
+    fields.setValueAtIndex(
+        rt, i, jsi::String::createFromUtf8(rt, list->numericFields[i]));
+  }
+  jsi::Object info(rt);
+  info.setProperty(rt, "size", static_cast<double>(list->size()));
+  info.setProperty(rt, "version", static_cast<double>(list->version));
+  info.setProperty(rt, "numericFields", std::move(fields));
+  return info;
+}
+
+jsi::Value getPage(
+    jsi::Runtime& rt,
+    react::TurboModule&,
+    const jsi::Value* args,
+    size_t count) {
+  const auto list = findList(stringArg(rt, args, count, 0));
+  if (!list) {
+    return jsi::Value::null();
+  }
+  const size_t size = list->size();
+  const size_t from = indexArg(args, count, 1, size);
+  const size_t to = from + indexArg(args, count, 2, size - from);
+
+  // One JSON array of the stored item texts, parsed by the runtime in a single call.
+  std::string page;
+  page.reserve(list->offsets[to] - list->offsets[from] + (to - from) + 2);
+  page.push_back('[');
+  for (size_t i = from; i < to; i++) {
+    if (i > from) {
+      page.push_back(',');
+    }
+    page.append(
+        list->json, list->offsets[i], list->offsets[i + 1] - list->offsets[i]);
+  }
+  page.push_back(']');
+
+  jsi::Object result(rt);
+  result.setProperty(rt, "version", static_cast<double>(list->version));
+  result.setProperty(rt, "size", static_cast<double>(size));
+  result.setProperty(
+      rt,
+      "items",
+      jsi::Value::createFromJsonUtf8(
+          rt, reinterpret_cast<const uint8_t*>(page.data()), page.size()));
+  return result;
+}
+
+jsi::Value getColumn(
+    jsi::Runtime& rt,
+    react::TurboModule&,
+    const jsi::Value* args,
+    size_t count) {
+  const auto list = findList(stringArg(rt, args, count, 0));
+  const auto field = stringArg(rt, args, count, 1);
+  if (!list) {
+    return jsi::Value::null();
+  }
+  const auto& fields = list->numericFields;
+  const auto it = std::find(fields.begin(), fields.end(), field);
+  if (it == fields.end()) {
+    return jsi::Value::null();
+  }
+  const size_t size = list->size();
+  const double* column = list->columns.data() + (it - fields.begin()) * size;
+  // A copy: the typed array is writable, the published list is shared.
+  jsi::ArrayBuffer buffer(rt, std::make_shared<ColumnBuffer>(column, size));
+  auto values = rt.global()
+                    .getPropertyAsFunction(rt, "Float64Array")
+                    .callAsConstructor(rt, std::move(buffer));
+
+  jsi::Object result(rt);
+  result.setProperty(rt, "version", static_cast<double>(list->version));
+  result.setProperty(rt, "values", std::move(values));
+  return result;
+}
+
+} // namespace
+
+void JContentLists::registerNatives() {
+  javaClassStatic()->registerNatives({
+      makeNativeMethod("nativePublish", nativePublish),
+      makeNativeMethod("nativeRemove", nativeRemove),
+  });
+}
+
+ChoicelyContentListsModule::ChoicelyContentListsModule(
+    std::shared_ptr<react::CallInvoker> jsInvoker)
+    : TurboModule(kModuleName, std::move(jsInvoker)) {
+  methodMap_["getInfo"] = MethodMetadata{1, getInfo};
+  methodMap_["getPage"] = MethodMetadata{3, getPage};
+  methodMap_["getColumn"] = MethodMetadata{2, getColumn};
+}
+
+} // namespace choicely
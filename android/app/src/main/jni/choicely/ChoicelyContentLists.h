@@ -0,0 +1,60 @@
+#pragma once
+
+#include <ReactCommon/TurboModule.h>
+#include <fbjni/fbjni.h>
+
+#include <cstdint>
+#include <memory>
+#include <string>
+#include <vector>
+
+namespace choicely {
+
+/**
+ * A list published from Java (com.choicely.sdk.rn.ChoicelyContentList); immutable once published,
+ * shared by every runtime that reads it.
+ */
+struct ContentList {
+  // Items' JSON text back to back; item i is [offsets[i], offsets[i + 1]).
+  std::string json;
+  std::vector<int32_t> offsets;
+  std::vector<std::string> numericFields;
+  // Field-major: field f of item i is columns[f * size() + i], NaN where missing.
+  std::vector<double> columns;
+  int64_t version = 0;
+
+  size_t size() const {
+    return offsets.empty() ? 0 : offsets.size() - 1;
+  }
+};
+
+/**
+ * Natives of com.choicely.sdk.rn.ChoicelyContentLists: publish and remove lists in the
+ * process-wide store the module reads.
+ */
+struct JContentLists : facebook::jni::JavaClass<JContentLists> {
+  static constexpr auto kJavaDescriptor =
+      "Lcom/choicely/sdk/rn/ChoicelyContentLists;";
+
+  static void registerNatives();
+};
+
+/**
+ * `ChoicelyContentLists` TurboModule (see rn/src/contentLists.js). All methods are synchronous:
+ *
+ *   getInfo(listId)                -> {size, version, numericFields} | null
+ *   getPage(listId, offset, limit) -> {version, size, items} | null
+ *   getColumn(listId, field)       -> {version, values: Float64Array} | null
+ *
+ * A page is assembled from the stored JSON text and parsed by the runtime in one call; a column
+ * is one buffer copy. Neither touches JNI or converts values one by one.
+ */
+class ChoicelyContentListsModule : public facebook::react::TurboModule {
+ public:
+  static constexpr auto kModuleName = "ChoicelyContentLists";
+
+  explicit ChoicelyContentListsModule(
+      std::shared_ptr<facebook::react::CallInvoker> jsInvoker);
+};
+
+} // namespace choicely
@@ -0,0 +1,30 @@
+#include "ChoicelyCxxReactPackage.h"
+
+#include "ChoicelyContentLists.h"
+
+namespace choicely {
+
+namespace jni = facebook::jni;
+namespace react = facebook::react;
+
+void ChoicelyCxxReactPackage::registerNatives() {
+  registerHybrid({
+      makeNativeMethod("initHybrid", ChoicelyCxxReactPackage::initHybrid),
+  });
+}
+
+jni::local_ref<ChoicelyCxxReactPackage::jhybriddata>
+ChoicelyCxxReactPackage::initHybrid(jni::alias_ref<jclass>) {
+  return makeCxxInstance();
+}
+
+std::shared_ptr<react::TurboModule> ChoicelyCxxReactPackage::getModule(
+    const std::string& name,
+    const std::shared_ptr<react::CallInvoker>& jsInvoker) {
+  if (name == ChoicelyContentListsModule::kModuleName) {
+    return std::make_shared<ChoicelyContentListsModule>(jsInvoker);
+  }
+  return nullptr;
+}
+
+} // namespace choicely
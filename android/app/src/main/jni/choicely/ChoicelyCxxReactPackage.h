@@ -0,0 +1,38 @@
+#pragma once
+
+#include <ReactCommon/CxxReactPackage.h>
+#include <fbjni/fbjni.h>
+
+#include <memory>
+#include <string>
+
+namespace choicely {
+
+/**
+ * Native half of com.choicely.sdk.rn.ChoicelyCxxReactPackage: the Choicely C++ TurboModules,
+ * looked up by name when JS first requires them.
+ */
+class ChoicelyCxxReactPackage
+    : public facebook::jni::HybridClass<
+          ChoicelyCxxReactPackage,
+          facebook::react::CxxReactPackage> {
+ public:
+  static constexpr auto kJavaDescriptor =
+      "Lcom/choicely/sdk/rn/ChoicelyCxxReactPackage;";
+
+  static void registerNatives();
+
+  std::shared_ptr<facebook::react::TurboModule> getModule(
+      const std::string& name,
+      const std::shared_ptr<facebook::react::CallInvoker>& jsInvoker) override;
+
+ private:
+  friend HybridBase;
+
+  ChoicelyCxxReactPackage() = default;
+
+  static facebook::jni::local_ref<jhybriddata> initHybrid(
+      facebook::jni::alias_ref<jclass>);
+};
+
+} // namespace choicely
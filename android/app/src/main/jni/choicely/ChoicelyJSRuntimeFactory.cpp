@@ -0,0 +1,152 @@
+#include "ChoicelyJSRuntimeFactory.h"
+
+#include <cxxreact/MessageQueueThread.h>
+#include <hermes/hermes.h>
+
+#include <fstream>
+#include <mutex>
+#include <string>
+#include <unordered_map>
+#include <utility>
+
+namespace choicely {
+
+namespace jni = facebook::jni;
+namespace jsi = facebook::jsi;
+namespace react = facebook::react;
+
+namespace {
+
+struct SampledRuntime {
+  std::weak_ptr<react::MessageQueueThread> queue;
+  jsi::Runtime* runtime;
+  size_t interval;
+};
+
+// Runtimes with heap sampling on, by id. An entry is removed before its runtime is destroyed,
+// and only used on the runtime's JS thread with the mutex held.
+std::mutex sampledMutex;
+std::unordered_map<int, SampledRuntime> sampled;
+int nextRuntimeId = 1;
+
+class TunedRuntime : public react::JSIRuntimeHolder {
+ public:
+  TunedRuntime(std::unique_ptr<jsi::Runtime> runtime, int sampledId)
+      : JSIRuntimeHolder(std::move(runtime)), sampledId_(sampledId) {}
+
+  ~TunedRuntime() override {
+    if (sampledId_ != 0) {
+      std::lock_guard<std::mutex> lock(sampledMutex);
+      sampled.erase(sampledId_);
+    }
+  }
+
+ private:
+  int sampledId_;
+};
+
+::hermes::vm::GCConfig makeGCConfig(const HermesSettings& settings) {
+  auto gcConfig = ::hermes::vm::GCConfig::Builder().withName("RN");
+  switch (settings.gcMode) {
+    case kGcYoung:
+      gcConfig.withAllocInYoung(true).withRevertToYGAtTTI(false);
+      break;
+    case kGcLowMemory:
+      gcConfig.withAllocInYoung(true)
+          .withRevertToYGAtTTI(false)
+          .withShouldReleaseUnused(::hermes::vm::kReleaseUnusedYoungAlways);
+      break;
+    default:
+      // React Native's own setup: no collections before TTI.
+      gcConfig.withAllocInYoung(false).withRevertToYGAtTTI(true);
+      break;
+  }
+  if (settings.initHeapBytes > 0) {
+    gcConfig.withInitHeapSize(
+        static_cast<::hermes::vm::gcheapsize_t>(settings.initHeapBytes));
+  }
+  if (settings.maxHeapBytes > 0) {
+    gcConfig.withMaxHeapSize(
+        static_cast<::hermes::vm::gcheapsize_t>(settings.maxHeapBytes));
+  }
+  return gcConfig.build();
+}
+
+} // namespace
+
+void ChoicelyJSRuntimeFactory::registerNatives() {
+  registerHybrid({
+      makeNativeMethod("initHybrid", ChoicelyJSRuntimeFactory::initHybrid),
+      makeNativeMethod(
+          "nativeWriteHeapSamples",
+          ChoicelyJSRuntimeFactory::nativeWriteHeapSamples),
+  });
+}
+
+jni::local_ref<ChoicelyJSRuntimeFactory::jhybriddata>
+ChoicelyJSRuntimeFactory::initHybrid(
+    jni::alias_ref<jclass>,
+    jlong initHeapBytes,
+    jlong maxHeapBytes,
+    jint gcMode,
+    jlong heapSamplingInterval) {
+  HermesSettings settings;
+  settings.initHeapBytes = initHeapBytes;
+  settings.maxHeapBytes = maxHeapBytes;
+  settings.gcMode = gcMode;
+  settings.heapSamplingInterval = heapSamplingInterval;
+  return makeCxxInstance(settings);
+}
+
+std::unique_ptr<react::JSRuntime> ChoicelyJSRuntimeFactory::createJSRuntime(
+    std::shared_ptr<react::MessageQueueThread> msgQueueThread) noexcept {
+  // The sampling profiler only runs for a profiling session (heap sampling on); release
+  // runtimes otherwise skip its setup and signal handler.
+  const bool profiling = settings_.heapSamplingInterval > 0;
+  const auto runtimeConfig = ::hermes::vm::RuntimeConfig::Builder()
+                                 .withGCConfig(makeGCConfig(settings_))
+                                 .withEnableSampleProfiling(profiling)
+                                 .withMicrotaskQueue(true)
+                                 .build();
+  std::unique_ptr<jsi::Runtime> runtime =
+      facebook::hermes::makeHermesRuntime(runtimeConfig);
+
+  int sampledId = 0;
+  if (profiling) {
+    const auto interval = static_cast<size_t>(settings_.heapSamplingInterval);
+    runtime->instrumentation().startHeapSampling(interval);
+    std::lock_guard<std::mutex> lock(sampledMutex);
+    sampledId = nextRuntimeId++;
+    sampled[sampledId] =
+        SampledRuntime{std::move(msgQueueThread), runtime.get(), interval};
+  }
+  return std::make_unique<TunedRuntime>(std::move(runtime), sampledId);
+}
+
+void ChoicelyJSRuntimeFactory::nativeWriteHeapSamples(
+    jni::alias_ref<jclass>,
+    jni::alias_ref<jstring> dirPath) {
+  const auto dir = dirPath->toStdString();
+  std::lock_guard<std::mutex> lock(sampledMutex);
+  for (const auto& entry : sampled) {
+    const auto queue = entry.second.queue.lock();
+    if (!queue) {
+      continue;
+    }
+    const int id = entry.first;
+    queue->runOnQueue([id, dir] {
+      std::lock_guard<std::mutex> lock(sampledMutex);
+      const auto it = sampled.find(id);
+      if (it == sampled.end()) {
+        return;
+      }
+      // Stopping hands over the samples so far; sampling restarts right away.
+      std::ofstream out(dir + "/heap-" + std::to_string(id) + ".heapprofile");
+      auto& instrumentation = it->second.runtime->instrumentation();
+      instrumentation.stopHeapSampling(out);
+      instrumentation.startHeapSampling(it->second.interval);
+    });
+  }
+}
+
+} // namespace choicely
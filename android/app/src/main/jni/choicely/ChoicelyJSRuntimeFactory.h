@@ -0,0 +1,64 @@
+#pragma once
+
+#include <fbjni/fbjni.h>
+#include <react/runtime/jni/JJSRuntimeFactory.h>
+
+#include <cstdint>
+#include <memory>
+
+namespace choicely {
+
+// com.choicely.sdk.rn.ChoicelyHermesSettings.GC_*
+constexpr int kGcDefault = 0;
+constexpr int kGcYoung = 1;
+constexpr int kGcLowMemory = 2;
+
+struct HermesSettings {
+  // 0 keeps the Hermes default.
+  int64_t initHeapBytes = 0;
+  int64_t maxHeapBytes = 0;
+  int gcMode = kGcDefault;
+  // 0 disables allocation-site sampling; above 0 also enables the Hermes sampling profiler.
+  int64_t heapSamplingInterval = 0;
+};
+
+/**
+ * Hermes runtimes with the heap and GC settings of com.choicely.sdk.rn.ChoicelyHermesSettings.
+ * Everything else matches React Native's own Hermes factory, except that the runtime is not
+ * registered with the debugger and the sampling profiler is only enabled while heap sampling is.
+ */
+class ChoicelyJSRuntimeFactory
+    : public facebook::jni::HybridClass<
+          ChoicelyJSRuntimeFactory,
+          facebook::react::JJSRuntimeFactory> {
+ public:
+  static constexpr auto kJavaDescriptor =
+      "Lcom/choicely/sdk/rn/ChoicelyJSRuntimeFactory;";
+
+  static void registerNatives();
+
+  std::unique_ptr<facebook::react::JSRuntime> createJSRuntime(
+      std::shared_ptr<facebook::react::MessageQueueThread>
+          msgQueueThread) noexcept override;
+
+ private:
+  friend HybridBase;
+
+  explicit ChoicelyJSRuntimeFactory(HermesSettings settings)
+      : settings_(settings) {}
+
+  static facebook::jni::local_ref<jhybriddata> initHybrid(
+      facebook::jni::alias_ref<jclass>,
+      jlong initHeapBytes,
+      jlong maxHeapBytes,
+      jint gcMode,
+      jlong heapSamplingInterval);
+
+  static void nativeWriteHeapSamples(
+      facebook::jni::alias_ref<jclass>,
+      facebook::jni::alias_ref<jstring> dirPath);
+
+  HermesSettings settings_;
+};
+
+} // namespace choicely
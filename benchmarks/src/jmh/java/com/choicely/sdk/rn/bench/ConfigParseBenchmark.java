@@ -0,0 +1,81 @@
+package com.choicely.sdk.rn.bench;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * choicely_config.json parsing as done by {@code ChoicelyRNConfig.loadConfigFromAssetsIfNeeded}
+ * (line-joined read into {@link JSONObject}) followed by {@code loadFromAssets} lookups.
+ * <p>
+ * ChoicelyRNConfig depends on Context and the SDK, so the parse is mirrored here; keep the two in
+ * step.
+ */
+@State(Scope.Benchmark)
+public class ConfigParseBenchmark {
+
+    /**
+     * Number of keys in the config; the shipped one has ~20 once filled in.
+     */
+    @Param({"20", "200"})
+    public int keys;
+
+    private byte[] config;
+    private String[] lookups;
+
+    @Setup
+    public void setup() {
+        final JSONObject json = new JSONObject();
+        json.put("app_key", "Y2hvaWNlbHktZXUvYXBwcy9kWkxJVDNxclI1WjN0c2xLcjJZeg");
+        json.put("rn_bundle_url", "https://cdn.example.com/bundles/index.android.bundle");
+        json.put("rn_prewarm", "true");
+        for (int i = 0; json.length() < keys; i++) {
+            json.put("rn_option_" + i, "value_" + i);
+        }
+        // Pretty-printed like the checked-in file, so readLine has real work to do.
+        config = json.toString(2).getBytes(StandardCharsets.UTF_8);
+        lookups = new String[]{"app_key", "rn_bundle_url", "rn_prewarm", "rn_missing_key"};
+    }
+
+    @Benchmark
+    public JSONObject parse() throws IOException {
+        return read(config);
+    }
+
+    /**
+     * Cold start: parse once, then the lookups startup makes.
+     */
+    @Benchmark
+    public int parseAndLookup() throws IOException {
+        final JSONObject json = read(config);
+        int found = 0;
+        for (final String key : lookups) {
+            if (json.optString(key, "").trim().length() > 0) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static JSONObject read(final byte[] bytes) throws IOException {
+        try (final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)
+        )) {
+            final StringBuilder sb = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sb.append(line);
+            }
+            return new JSONObject(sb.toString());
+        }
+    }
+}
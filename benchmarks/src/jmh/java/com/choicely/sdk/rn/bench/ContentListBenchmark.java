@@ -0,0 +1,132 @@
+package com.choicely.sdk.rn.bench;
+
+import com.choicely.sdk.rn.ChoicelyContentList;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handing a feed-like list to JS: a Java module converting it value by value into a
+ * {@code WritableArray} (as {@code Arguments.fromJsonArray} does) against
+ * {@link ChoicelyContentList}, encoded once on publish and served by the C++ module a page at a
+ * time.
+ * <p>
+ * The Writable tree is mirrored with plain maps and lists, so the baseline leaves out the JNI call
+ * made per value on a device, and neither side includes the JS work (the bridge conversion of the
+ * tree vs one JSON parse per page). Read the numbers as a lower bound on the difference.
+ * <p>
+ * {@link #contentListEncode} is dominated by {@code JSONObject.toString}, which is several times
+ * slower in the JVM org.json than in Android's; it is paid once per publish, off the JS thread.
+ */
+@State(Scope.Benchmark)
+public class ContentListBenchmark {
+
+    @Param({"100", "2000"})
+    public int items;
+
+    /**
+     * Items per page served to a list screen.
+     */
+    @Param({"50"})
+    public int pageSize;
+
+    private JSONArray feed;
+    private ChoicelyContentList encoded;
+
+    @Setup
+    public void setup() {
+        feed = new JSONArray();
+        for (int i = 0; i < items; i++) {
+            final JSONObject item = new JSONObject();
+            item.put("key", "article_" + i);
+            item.put("title", "Article title number " + i);
+            item.put("description", "Short description of the article, about a line of text long.");
+            item.put("image_url", "https://cdn.example.com/images/" + i + ".jpg");
+            item.put("published_at", 1_700_000_000L + i * 60L);
+            item.put("vote_count", i * 7 % 1000);
+            item.put("is_featured", i % 10 == 0);
+            final JSONObject author = new JSONObject();
+            author.put("name", "Author " + i % 20);
+            author.put("avatar_url", "https://cdn.example.com/avatars/" + i % 20 + ".jpg");
+            item.put("author", author);
+            final JSONArray tags = new JSONArray();
+            tags.put("news");
+            tags.put("tag_" + i % 5);
+            item.put("tags", tags);
+            feed.put(item);
+        }
+        encoded = ChoicelyContentList.encode(feed, "vote_count", "published_at");
+    }
+
+    /**
+     * Baseline: the whole list converted for one Java module call.
+     */
+    @Benchmark
+    public List<Object> javaModuleWholeList() {
+        return convertArray(feed, 0, feed.length());
+    }
+
+    /**
+     * Baseline with paging added to the Java module: still converted value by value.
+     */
+    @Benchmark
+    public List<Object> javaModulePage() {
+        return convertArray(feed, 0, Math.min(pageSize, feed.length()));
+    }
+
+    /**
+     * Once per publish.
+     */
+    @Benchmark
+    public ChoicelyContentList contentListEncode() {
+        return ChoicelyContentList.encode(feed, "vote_count", "published_at");
+    }
+
+    /**
+     * Per page: the text the C++ module hands to the JS JSON parser.
+     */
+    @Benchmark
+    public String contentListPage() {
+        return encoded.pageJson(0, Math.min(pageSize, encoded.size()));
+    }
+
+    private static List<Object> convertArray(final JSONArray array, final int from, final int to) {
+        final List<Object> out = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            out.add(convert(array.opt(i)));
+        }
+        return out;
+    }
+
+    private static Object convert(final Object value) {
+        if (value instanceof JSONObject) {
+            final JSONObject object = (JSONObject) value;
+            final Map<String, Object> out = new HashMap<>();
+            for (final Iterator<String> it = object.keys(); it.hasNext(); ) {
+                final String key = it.next();
+                out.put(key, convert(object.opt(key)));
+            }
+            return out;
+        }
+        if (value instanceof JSONArray) {
+            final JSONArray array = (JSONArray) value;
+            return convertArray(array, 0, array.length());
+        }
+        if (value instanceof Number) {
+            // Writable maps store every number as a double.
+            return ((Number) value).doubleValue();
+        }
+        return value;
+    }
+}
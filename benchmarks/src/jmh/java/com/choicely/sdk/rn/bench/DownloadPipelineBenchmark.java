@@ -0,0 +1,148 @@
+package com.choicely.sdk.rn.bench;
+
+import com.choicely.sdk.rn.ChoicelyRemoteBundle;
+
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * {@link ChoicelyRemoteBundle#download} end to end against a local {@link MockWebServer}:
+ * request, transport decoding, digest-in-copy, temp file, rename and metadata sidecar.
+ * <ul>
+ *   <li>{@link #fresh}: no file on disk, full transfer.</li>
+ *   <li>{@link #revalidate}: file and sidecar present, answered with 304.</li>
+ * </ul>
+ * Loopback only, so this measures the client-side pipeline, not the network.
+ */
+@State(Scope.Benchmark)
+public class DownloadPipelineBenchmark {
+    private static final String ETAG = "\"bench-1\"";
+
+    @Param({"262144", "4194304"})
+    public int size;
+
+    @Param({"identity", "gzip"})
+    public String encoding;
+
+    private MockWebServer server;
+    private File dir;
+    private File freshFile;
+    private File cachedFile;
+    private String url;
+    private String sha256;
+
+    @Setup(Level.Trial)
+    public void startServer() throws Exception {
+        // JS-like, moderately compressible content.
+        final byte[] body = new byte[size];
+        final Random random = new Random(42);
+        final byte[] alphabet = "function(){return this.props;}var a=0;\n".getBytes();
+        for (int i = 0; i < size; i++) {
+            body[i] = random.nextInt(8) == 0 ? (byte) ('a' + random.nextInt(26)) : alphabet[i % alphabet.length];
+        }
+        sha256 = hex(MessageDigest.getInstance("SHA-256").digest(body));
+        final byte[] payload = "gzip".equals(encoding) ? gzip(body) : body;
+
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @NotNull
+            @Override
+            public MockResponse dispatch(@NotNull final RecordedRequest request) {
+                if (ETAG.equals(request.getHeader("If-None-Match"))) {
+                    return new MockResponse().setResponseCode(304).setHeader("ETag", ETAG);
+                }
+                final MockResponse response = new MockResponse()
+                        .setHeader("ETag", ETAG)
+                        .setBody(new Buffer().write(payload));
+                if ("gzip".equals(encoding)) {
+                    response.setHeader("Content-Encoding", "gzip");
+                }
+                return response;
+            }
+        });
+        server.start();
+        url = server.url("/index.android.bundle").toString();
+
+        dir = Files.createTempDirectory("choicely-rn-bench").toFile();
+        freshFile = new File(dir, "fresh/index.android.bundle");
+        cachedFile = new File(dir, "cached/index.android.bundle");
+        if (!ChoicelyRemoteBundle.download(url, cachedFile, false, sha256).join()) {
+            throw new IllegalStateException("Priming download failed");
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearFresh() throws IOException {
+        final File parent = freshFile.getParentFile();
+        if (parent.exists()) {
+            deleteTree(parent);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws IOException {
+        server.shutdown();
+        deleteTree(dir);
+    }
+
+    @Benchmark
+    public boolean fresh() {
+        return check(ChoicelyRemoteBundle.download(url, freshFile, false, sha256).join());
+    }
+
+    @Benchmark
+    public boolean revalidate() {
+        return check(ChoicelyRemoteBundle.download(url, cachedFile, false, sha256).join());
+    }
+
+    private static boolean check(final boolean ok) {
+        if (!ok) {
+            throw new IllegalStateException("Download failed");
+        }
+        return true;
+    }
+
+    private static byte[] gzip(final byte[] data) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hex(final byte[] bytes) {
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void deleteTree(final File root) throws IOException {
+        try (final Stream<java.nio.file.Path> paths = Files.walk(root.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(java.nio.file.Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.choicely.sdk.rn.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Internal link routing as done by {@code MyContentFactory.makeAppContentFragment}: split the path
+ * into segments, pick the sub-router and component, and collect query parameters as props.
+ * <p>
+ * {@code android.net.Uri} is not available on the JVM; the same steps are taken with
+ * {@link URI}, which parses eagerly where Uri parses lazily, so absolute numbers are an upper
+ * bound.
+ */
+@State(Scope.Benchmark)
+public class RouteParseBenchmark {
+
+    @Param({
+            "choicely://special/rn/HelloWorld",
+            "choicely://special/rn/ProductList?category=shoes&sort=price&page=3",
+            "https://example.com/special/rn/Search?q=caf%C3%A9%20au%20lait&lang=fi&from=deeplink&ref=push",
+    })
+    public String url;
+
+    @Benchmark
+    public Route route() {
+        final URI uri = URI.create(url);
+        final List<String> pathSegments = pathSegments(uri);
+        if (pathSegments.isEmpty()) {
+            return null;
+        }
+        // choicely://special/... puts the router in the authority; http links put it in the path.
+        int index = "special".equals(pathSegments.get(0)) ? 1 : 0;
+        final String specialKey = pathSegments.size() > index ? pathSegments.get(index) : null;
+        if (!"rn".equals(specialKey)) {
+            return null;
+        }
+        index++;
+        final String component = pathSegments.size() > index ? pathSegments.get(index) : null;
+        if (component == null || component.isEmpty()) {
+            return null;
+        }
+        return new Route(component, queryParameters(uri));
+    }
+
+    private static List<String> pathSegments(final URI uri) {
+        final List<String> segments = new ArrayList<>();
+        if ("choicely".equals(uri.getScheme()) && uri.getAuthority() != null) {
+            segments.add(uri.getAuthority());
+        }
+        final String path = uri.getPath();
+        if (path == null) {
+            return segments;
+        }
+        int start = 0;
+        while (start < path.length()) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (end > start) {
+                segments.add(path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    private static Map<String, String> queryParameters(final URI uri) {
+        final Map<String, String> params = new LinkedHashMap<>();
+        final String query = uri.getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (final String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            final int eq = pair.indexOf('=');
+            final String key = decode(eq < 0 ? pair : pair.substring(0, eq));
+            final String value = eq < 0 ? "" : decode(pair.substring(eq + 1));
+            if (!key.isEmpty()) {
+                params.putIfAbsent(key, value);
+            }
+        }
+        return params;
+    }
+
+    private static String decode(final String s) {
+        return URLDecoder.decode(s, StandardCharsets.UTF_8);
+    }
+
+    public static final class Route {
+        public final String component;
+        public final Map<String, String> props;
+
+        Route(final String component, final Map<String, String> props) {
+            this.component = component;
+            this.props = props;
+        }
+    }
+}
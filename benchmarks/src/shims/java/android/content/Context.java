@@ -0,0 +1,8 @@
+package android.content;
+
+/**
+ * JVM stand-in; only the application context is used.
+ */
+public abstract class Context {
+    public abstract Context getApplicationContext();
+}
@@ -0,0 +1,44 @@
+package android.os;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JVM stand-in: the string members, backed by a map.
+ */
+public final class Bundle {
+    private final Map<String, Object> values = new LinkedHashMap<>();
+
+    public Bundle() {
+    }
+
+    public Bundle(Bundle b) {
+        values.putAll(b.values);
+    }
+
+    public void putString(String key, String value) {
+        values.put(key, value);
+    }
+
+    public String getString(String key) {
+        final Object value = values.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    public Object get(String key) {
+        return values.get(key);
+    }
+
+    public Set<String> keySet() {
+        return values.keySet();
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+}
@@ -0,0 +1,21 @@
+package android.os;
+
+/**
+ * JVM stand-in: runs posted work right away on the calling thread; delayed work never runs.
+ */
+public class Handler {
+    public Handler(Looper looper) {
+    }
+
+    public final boolean post(Runnable r) {
+        r.run();
+        return true;
+    }
+
+    public final boolean postDelayed(Runnable r, long delayMillis) {
+        return true;
+    }
+
+    public final void removeCallbacks(Runnable r) {
+    }
+}
@@ -0,0 +1,19 @@
+package android.os;
+
+/**
+ * JVM stand-in: there is no main looper, so no thread counts as the main thread.
+ */
+public final class Looper {
+    private static final Looper MAIN = new Looper();
+
+    private Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN;
+    }
+
+    public static Looper myLooper() {
+        return null;
+    }
+}
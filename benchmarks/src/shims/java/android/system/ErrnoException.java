@@ -0,0 +1,13 @@
+package android.system;
+
+/**
+ * JVM stand-in for the exception {@link Os} calls throw.
+ */
+public final class ErrnoException extends Exception {
+    public final int errno;
+
+    public ErrnoException(String functionName, int errno) {
+        super(functionName + " failed: errno " + errno);
+        this.errno = errno;
+    }
+}
@@ -0,0 +1,30 @@
+package android.system;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * JVM stand-in: {@code link} is a real hard link unless a test turns it off, as on a filesystem
+ * without hard links or where SELinux denies them.
+ */
+public final class Os {
+    private static final int EIO = 5;
+    private static final int EPERM = 1;
+
+    public static volatile boolean linkSupported = true;
+
+    private Os() {
+    }
+
+    public static void link(String oldPath, String newPath) throws ErrnoException {
+        if (!linkSupported) {
+            throw new ErrnoException("link", EPERM);
+        }
+        try {
+            Files.createLink(Paths.get(newPath), Paths.get(oldPath));
+        } catch (IOException e) {
+            throw new ErrnoException("link", EIO);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package android.text;
+
+/**
+ * JVM stand-in.
+ */
+public final class TextUtils {
+    private TextUtils() {
+    }
+
+    public static int getTrimmedLength(CharSequence s) {
+        return s == null ? 0 : s.toString().trim().length();
+    }
+}
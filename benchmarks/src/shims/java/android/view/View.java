@@ -0,0 +1,7 @@
+package android.view;
+
+/**
+ * JVM stand-in.
+ */
+public class View {
+}
@@ -0,0 +1,17 @@
+package com.choicely.sdk.service.log;
+
+/**
+ * JVM stand-in for the Choicely SDK logger.
+ */
+public final class QLog {
+    private QLog() {
+    }
+
+    public static void e(String tag, String message) {
+        System.err.println("E/" + tag + ": " + message);
+    }
+
+    public static void e(Throwable t, String tag, String message) {
+        System.err.println("E/" + tag + ": " + message + ": " + t);
+    }
+}
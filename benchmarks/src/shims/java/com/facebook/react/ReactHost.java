@@ -0,0 +1,16 @@
+package com.facebook.react;
+
+import android.content.Context;
+import android.os.Bundle;
+
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.interfaces.fabric.ReactSurface;
+
+/**
+ * JVM stand-in with the members the compiled app classes use.
+ */
+public interface ReactHost {
+    ReactContext getCurrentReactContext();
+
+    ReactSurface createSurface(Context context, String moduleName, Bundle initialProps);
+}
@@ -0,0 +1,7 @@
+package com.facebook.react.bridge;
+
+/**
+ * JVM stand-in.
+ */
+public class ReactContext {
+}
@@ -0,0 +1,7 @@
+package com.facebook.react.interfaces;
+
+/**
+ * JVM stand-in.
+ */
+public interface TaskInterface<T> {
+}
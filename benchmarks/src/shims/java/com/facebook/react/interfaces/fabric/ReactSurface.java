@@ -0,0 +1,18 @@
+package com.facebook.react.interfaces.fabric;
+
+import android.view.ViewGroup;
+
+import com.facebook.react.interfaces.TaskInterface;
+
+/**
+ * JVM stand-in with the members the compiled app classes use.
+ */
+public interface ReactSurface {
+    TaskInterface<Void> prerender();
+
+    TaskInterface<Void> start();
+
+    TaskInterface<Void> stop();
+
+    ViewGroup getView();
+}
@@ -0,0 +1,127 @@
+package com.choicely.sdk.rn;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+
+/**
+ * {@link ChoicelyBundleDownloads} with tasks that block until released, so the executor state can
+ * be inspected while jobs are running and queued.
+ */
+public class ChoicelyBundleDownloadsTest {
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private final ChoicelyBundleDownloads downloads = new ChoicelyBundleDownloads();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    public void identicalRequestsShareOneJob() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        final File dest = new File(tmp.getRoot(), "a.bundle");
+        final ChoicelyBundleDownloads.Task task = job -> {
+            runs.incrementAndGet();
+            return release.await(10, TimeUnit.SECONDS) && job.commit(() -> true);
+        };
+
+        final CompletableFuture<Boolean> first = downloads.submit("https://x/a", dest, task);
+        final CompletableFuture<Boolean> second = downloads.submit("https://x/a", dest, task);
+
+        assertSame(first, second);
+        assertEquals(1, downloads.inFlightCount());
+        release.countDown();
+        assertTrue(first.get(10, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+        awaitTrue(() -> downloads.inFlightCount() == 0);
+
+        // Once finished, the same request runs again.
+        assertTrue(downloads.submit("https://x/a", dest, task).get(10, TimeUnit.SECONDS));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void rejectsBeyondQueueCapacity() throws Exception {
+        final List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        final CountDownLatch started = new CountDownLatch(2);
+        final ChoicelyBundleDownloads.Task task = job -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        };
+        for (int i = 0; i < 2 + 16; i++) {
+            futures.add(downloads.submit("https://x/" + i, new File(tmp.getRoot(), i + ".bundle"), task));
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertEquals(2, downloads.activeCount());
+        assertEquals(16, downloads.queuedCount());
+
+        final CompletableFuture<Boolean> rejected = downloads.submit("https://x/over", new File(tmp.getRoot(), "over.bundle"), task);
+
+        assertTrue(rejected.isDone());
+        assertFalse(rejected.get());
+        awaitTrue(() -> downloads.inFlightCount() == 18);
+        release.countDown();
+        for (final CompletableFuture<Boolean> future : futures) {
+            assertTrue(future.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void newUrlForSameDestinationCancelsOlderJob() throws Exception {
+        final File dest = new File(tmp.getRoot(), "same.bundle");
+        final AtomicReference<ChoicelyBundleDownloads.Job> oldJob = new AtomicReference<>();
+        final AtomicReference<Boolean> oldCommitted = new AtomicReference<>();
+        final CountDownLatch oldStarted = new CountDownLatch(1);
+        final Call call = new OkHttpClient().newCall(new Request.Builder().url("https://x/v1").build());
+        final CompletableFuture<Boolean> old = downloads.submit("https://x/v1", dest, job -> {
+            oldJob.set(job);
+            job.attach(call);
+            oldStarted.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            oldCommitted.set(job.commit(() -> true));
+            return true;
+        });
+        assertTrue(oldStarted.await(10, TimeUnit.SECONDS));
+
+        final CompletableFuture<Boolean> newer = downloads.submit("https://x/v2", dest, job -> job.commit(() -> true));
+
+        assertTrue(oldJob.get().isCancelled());
+        assertTrue(call.isCanceled());
+        assertTrue(newer.get(10, TimeUnit.SECONDS));
+        release.countDown();
+        assertFalse(old.get(10, TimeUnit.SECONDS));
+        assertFalse(oldCommitted.get());
+    }
+
+    private static void awaitTrue(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.choicely.sdk.rn;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
+/**
+ * {@link ChoicelyBundlePatch#apply} against a {@link MockWebServer} serving CRNDELTA patches for
+ * an installed bundle: a valid patch, each way a patch is rejected, and the 404 that sends the
+ * update to a full download.
+ */
+public class ChoicelyBundlePatchTest {
+    private static final int SIZE = 64 * 1024;
+    private static final byte[] INSERTED = "// patched in\n".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private final MockWebServer server = new MockWebServer();
+    private final ChoicelyBundleDownloads downloads = new ChoicelyBundleDownloads();
+    private byte[] source;
+    private byte[] target;
+    private String targetSha256;
+    private File bundle;
+    private String patchUrl;
+    private String bundleUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        source = new byte[SIZE];
+        new Random(2).nextBytes(source);
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(source, 0, 1000);
+        expected.write(INSERTED);
+        expected.write(source, 2000, SIZE - 2000);
+        target = expected.toByteArray();
+        targetSha256 = sha256(target);
+        bundle = new File(tmp.getRoot(), "bundles/index.android.bundle");
+        assertTrue(bundle.getParentFile().mkdirs());
+        Files.write(bundle.toPath(), source);
+        server.start();
+        patchUrl = server.url("/patch/index.android.bundle").toString();
+        bundleUrl = server.url("/index.android.bundle").toString();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void copyAndInsertProduceTarget() throws Exception {
+        serve(patch(SIZE, target.length, MessageDigest.getInstance("SHA-256").digest(target), validOps()));
+
+        assertTrue(apply(targetSha256));
+
+        assertArrayEquals(target, Files.readAllBytes(bundle.toPath()));
+        final ChoicelyBundleMetadata meta = ChoicelyBundleMetadata.read(bundle);
+        assertNotNull(meta);
+        assertEquals(targetSha256, meta.sha256);
+        assertNoTempFiles();
+    }
+
+    @Test
+    public void rejectsSourceLengthMismatch() throws Exception {
+        serve(patch(SIZE + 1, target.length, MessageDigest.getInstance("SHA-256").digest(target), validOps()));
+
+        assertFalse(apply(targetSha256));
+
+        assertUntouched();
+    }
+
+    @Test
+    public void rejectsCopyOutOfRange() throws Exception {
+        final ByteArrayOutputStream ops = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(ops);
+        out.writeByte(0x01);
+        out.writeLong(SIZE - 10);
+        out.writeInt(100);
+        out.writeByte(0x00);
+        serve(patch(SIZE, 100, new byte[32], ops.toByteArray()));
+
+        assertFalse(apply(null));
+
+        assertUntouched();
+    }
+
+    @Test
+    public void rejectsTruncatedStream() throws Exception {
+        final byte[] full = patch(SIZE, target.length, MessageDigest.getInstance("SHA-256").digest(target), validOps());
+        // Cut inside the last COPY, before END.
+        serve(Arrays.copyOf(full, full.length - 6));
+
+        assertFalse(apply(targetSha256));
+
+        assertUntouched();
+    }
+
+    @Test
+    public void rejectsHeaderDigestMismatch() throws Exception {
+        final byte[] wrongSha256 = MessageDigest.getInstance("SHA-256").digest(target);
+        wrongSha256[0] ^= 0x01;
+        serve(patch(SIZE, target.length, wrongSha256, validOps()));
+
+        assertFalse(apply(null));
+
+        assertUntouched();
+    }
+
+    @Test
+    public void rejectsManifestDigestMismatch() throws Exception {
+        serve(patch(SIZE, target.length, MessageDigest.getInstance("SHA-256").digest(target), validOps()));
+
+        assertFalse(apply(sha256(source)));
+
+        assertUntouched();
+    }
+
+    @Test
+    public void notFoundFallsBackToFullDownload() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404));
+        server.enqueue(new MockResponse().setBody(new Buffer().write(target)));
+
+        final boolean updated = downloads.submit(bundleUrl, bundle, job ->
+                ChoicelyBundlePatch.apply(job, patchUrl, targetSha256)
+                        || ChoicelyRemoteBundle.fetch(job, targetSha256)
+        ).join();
+
+        assertTrue(updated);
+        assertEquals("/patch/index.android.bundle", server.takeRequest().getPath());
+        assertEquals("/index.android.bundle", server.takeRequest().getPath());
+        assertArrayEquals(target, Files.readAllBytes(bundle.toPath()));
+        assertNoTempFiles();
+    }
+
+    /**
+     * COPY [0, 1000), INSERT {@link #INSERTED}, COPY [2000, SIZE), END.
+     */
+    private byte[] validOps() throws IOException {
+        final ByteArrayOutputStream ops = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(ops);
+        out.writeByte(0x01);
+        out.writeLong(0);
+        out.writeInt(1000);
+        out.writeByte(0x02);
+        out.writeInt(INSERTED.length);
+        out.write(INSERTED);
+        out.writeByte(0x01);
+        out.writeLong(2000);
+        out.writeInt(SIZE - 2000);
+        out.writeByte(0x00);
+        return ops.toByteArray();
+    }
+
+    private static byte[] patch(final long sourceLength,
+                                final long targetLength,
+                                final byte[] targetSha256,
+                                final byte[] ops) throws IOException {
+        final ByteArrayOutputStream patch = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(patch);
+        out.write("CRNDELTA".getBytes(StandardCharsets.US_ASCII));
+        out.writeByte(1);
+        out.writeLong(sourceLength);
+        out.writeLong(targetLength);
+        out.write(targetSha256);
+        out.write(ops);
+        return patch.toByteArray();
+    }
+
+    private void serve(final byte[] patch) {
+        server.enqueue(new MockResponse().setBody(new Buffer().write(patch)));
+    }
+
+    private boolean apply(final String expectedSha256) {
+        return downloads.submit(patchUrl, bundle, job -> ChoicelyBundlePatch.apply(job, patchUrl, expectedSha256)).join();
+    }
+
+    private void assertUntouched() throws IOException {
+        assertArrayEquals(source, Files.readAllBytes(bundle.toPath()));
+        assertNoTempFiles();
+    }
+
+    private void assertNoTempFiles() {
+        final String[] temps = bundle.getParentFile().list((dir, name) -> name.endsWith(".tmp") || name.endsWith(".part"));
+        assertNotNull(temps);
+        assertEquals(Arrays.toString(temps), 0, temps.length);
+    }
+
+    private static String sha256(final byte[] bytes) throws Exception {
+        return ChoicelyBundleMetadata.toHex(MessageDigest.getInstance("SHA-256").digest(bytes), 32);
+    }
+}
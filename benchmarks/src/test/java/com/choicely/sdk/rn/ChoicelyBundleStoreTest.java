@@ -0,0 +1,256 @@
+package com.choicely.sdk.rn;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.system.Os;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChoicelyBundleStore} on a temporary directory: commit/stage/activate, which versions
+ * {@link ChoicelyBundleStore#gc()} keeps, and recovery of the index and objects from the disk.
+ */
+public class ChoicelyBundleStoreTest {
+    private static final String BUNDLE = "index.android.bundle";
+    private static final int SIZE = 1024;
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private File root;
+
+    @Before
+    public void setUp() {
+        root = new File(tmp.getRoot(), "bundles");
+    }
+
+    @After
+    public void tearDown() {
+        Os.linkSupported = true;
+    }
+
+    @Test
+    public void commitStageAndActivate() throws Exception {
+        final ChoicelyBundleStore store = new ChoicelyBundleStore(root);
+        final List<String> changes = new ArrayList<>();
+        store.addListener((name, current) -> changes.add(name + " " + current.getName()));
+        final File v1Source = source("v1");
+
+        final File v1 = store.commit(BUNDLE, "v1", v1Source);
+
+        assertNotNull(v1);
+        assertEquals(v1, store.currentFile(BUNDLE));
+        assertArrayEquals(bytes("v1"), Files.readAllBytes(v1.toPath()));
+        assertTrue("source is kept as the base for the next update", v1Source.isFile());
+        assertEquals("v1", store.versionOf(BUNDLE, v1));
+
+        final File v2 = store.stage(BUNDLE, "v2", source("v2"));
+
+        assertNotNull(v2);
+        assertEquals(v1, store.currentFile(BUNDLE));
+        assertEquals("v2", store.getStagedVersion(BUNDLE));
+        assertEquals(v2, store.fileForVersion(BUNDLE, "v2"));
+
+        assertEquals("v2", store.activateStaged(BUNDLE));
+
+        assertEquals(v2, store.currentFile(BUNDLE));
+        assertNull(store.getStagedVersion(BUNDLE));
+        assertNull(store.activateStaged(BUNDLE));
+
+        assertTrue("rollback to the previous version", store.activate(BUNDLE, "v1"));
+        assertEquals(v1, store.currentFile(BUNDLE));
+        assertFalse(store.activate(BUNDLE, "v3"));
+        assertEquals(Arrays.asList(BUNDLE + " " + v1.getName(), BUNDLE + " " + v2.getName(), BUNDLE + " " + v1.getName()), changes);
+
+        final ChoicelyBundleStore reopened = new ChoicelyBundleStore(root);
+        assertEquals(v1, reopened.currentFile(BUNDLE));
+        assertEquals(v2, reopened.fileForVersion(BUNDLE, "v2"));
+    }
+
+    @Test
+    public void identicalBytesShareOneObject() throws Exception {
+        final ChoicelyBundleStore store = new ChoicelyBundleStore(root);
+
+        final File a = store.commit(BUNDLE, "v1", source("same", "a"));
+        final File b = store.commit(BUNDLE, "v2", source("same", "b"));
+
+        assertEquals(a, b);
+        assertEquals(1, objects().length);
+    }
+
+    @Test
+    public void gcKeepsCurrentPreviousAndStaged() throws Exception {
+        // Nothing unpinned survives a gc at this size.
+        final ChoicelyBundleStore store = new ChoicelyBundleStore(root, 0, TimeUnit.DAYS.toMillis(30));
+        store.commit(BUNDLE, "v1", source("v1"));
+        store.commit(BUNDLE, "v2", source("v2"));
+        store.stage(BUNDLE, "v3", source("v3"));
+
+        store.gc();
+
+        assertEquals(new HashSet<>(Arrays.asList("v1", "v2", "v3")), store.pinnedVersions(BUNDLE));
+        assertNotNull(store.fileForVersion(BUNDLE, "v1"));
+        assertNotNull(store.fileForVersion(BUNDLE, "v2"));
+        assertNotNull(store.fileForVersion(BUNDLE, "v3"));
+
+        // A newer staged version unpins the one it replaces.
+        store.stage(BUNDLE, "v4", source("v4"));
+
+        assertNull(store.fileForVersion(BUNDLE, "v3"));
+        assertEquals(new HashSet<>(Arrays.asList("v1", "v2", "v4")), store.pinnedVersions(BUNDLE));
+
+        // Activation makes v2 previous, so v1 is no longer pinned.
+        assertEquals("v4", store.activateStaged(BUNDLE));
+        store.gc();
+
+        assertNull(store.fileForVersion(BUNDLE, "v1"));
+        assertNotNull(store.fileForVersion(BUNDLE, "v2"));
+        assertNotNull(store.fileForVersion(BUNDLE, "v4"));
+        assertEquals(2, objects().length);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedFirst() throws Exception {
+        final ChoicelyBundleStore store = new ChoicelyBundleStore(root, 4L * SIZE, TimeUnit.DAYS.toMillis(30));
+        commitLater(store, "v1");
+        commitLater(store, "v2");
+        commitLater(store, "v3");
+        // Using v1 again makes it more recent than v2 and v3.
+        Thread.sleep(5);
+        assertTrue(store.activate(BUNDLE, "v1"));
+        commitLater(store, "v4");
+
+        commitLater(store, "v5");
+
+        assertNull(store.fileForVersion(BUNDLE, "v2"));
+        assertNotNull(store.fileForVersion(BUNDLE, "v3"));
+        assertNotNull(store.fileForVersion(BUNDLE, "v1"));
+
+        commitLater(store, "v6");
+
+        assertNull(store.fileForVersion(BUNDLE, "v3"));
+        assertNotNull(store.fileForVersion(BUNDLE, "v1"));
+        assertNotNull(store.fileForVersion(BUNDLE, "v4"));
+        assertNotNull(store.fileForVersion(BUNDLE, "v5"));
+        assertNotNull(store.fileForVersion(BUNDLE, "v6"));
+        assertEquals(4, objects().length);
+    }
+
+    @Test
+    public void evictsExpiredObjects() throws Exception {
+        final ChoicelyBundleStore store = new ChoicelyBundleStore(root, Long.MAX_VALUE, 1);
+        commitLater(store, "v1");
+        commitLater(store, "v2");
+        commitLater(store, "v3");
+
+        assertNull(store.fileForVersion(BUNDLE, "v1"));
+        assertNotNull(store.fileForVersion(BUNDLE, "v2"));
+        assertNotNull(store.fileForVersion(BUNDLE, "v3"));
+    }
+
+    @Test
+    public void ignoresPartialIndexWrite() throws Exception {
+        final File v1 = new ChoicelyBundleStore(root).commit(BUNDLE, "v1", source("v1"));
+        // An index write cut short never reaches index.json; it leaves a temp file behind.
+        final File index = new File(root, "index.json");
+        final byte[] complete = Files.readAllBytes(index.toPath());
+        Files.write(new File(root, "index.json.1a2b3c.tmp").toPath(), Arrays.copyOf(complete, complete.length / 2));
+
+        final ChoicelyBundleStore reopened = new ChoicelyBundleStore(root);
+
+        assertEquals(v1, reopened.currentFile(BUNDLE));
+        assertEquals("v1", reopened.versionOf(BUNDLE, v1));
+    }
+
+    @Test
+    public void recoversFromTruncatedIndex() throws Exception {
+        new ChoicelyBundleStore(root).commit(BUNDLE, "v1", source("v1"));
+        final File index = new File(root, "index.json");
+        final byte[] complete = Files.readAllBytes(index.toPath());
+        Files.write(index.toPath(), Arrays.copyOf(complete, complete.length / 2));
+
+        final ChoicelyBundleStore reopened = new ChoicelyBundleStore(root);
+
+        assertNull("unreadable index starts empty", reopened.currentFile(BUNDLE));
+        final File v2 = reopened.commit(BUNDLE, "v2", source("v2"));
+        assertNotNull(v2);
+        assertEquals(v2, new ChoicelyBundleStore(root).currentFile(BUNDLE));
+        // Objects the lost index referred to are swept.
+        assertEquals(1, objects().length);
+    }
+
+    @Test
+    public void hardLinksSourceWhenPossible() throws Exception {
+        final File source = source("v1");
+
+        final File object = new ChoicelyBundleStore(root).commit(BUNDLE, "v1", source);
+
+        assertNotNull(object);
+        assertTrue(Files.isSameFile(source.toPath(), object.toPath()));
+    }
+
+    @Test
+    public void copiesSourceWhenLinkUnavailable() throws Exception {
+        Os.linkSupported = false;
+        final File source = source("v1");
+
+        final File object = new ChoicelyBundleStore(root).commit(BUNDLE, "v1", source);
+
+        assertNotNull(object);
+        assertFalse(Files.isSameFile(source.toPath(), object.toPath()));
+        assertArrayEquals(bytes("v1"), Files.readAllBytes(object.toPath()));
+        assertTrue(source.isFile());
+        assertEquals(1, objects().length);
+    }
+
+    /**
+     * Commits {@code version} a few milliseconds after the previous change, so last-used times
+     * differ.
+     */
+    private void commitLater(final ChoicelyBundleStore store, final String version) throws Exception {
+        Thread.sleep(5);
+        assertNotNull(store.commit(BUNDLE, version, source(version)));
+    }
+
+    private File source(final String content) throws Exception {
+        return source(content, content);
+    }
+
+    /**
+     * Writes a {@link #SIZE}-byte bundle derived from {@code content} into a download directory.
+     */
+    private File source(final String content, final String dir) throws Exception {
+        final File file = new File(tmp.getRoot(), "downloads/" + dir + "/" + BUNDLE);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), bytes(content));
+        return file;
+    }
+
+    private static byte[] bytes(final String content) {
+        return Arrays.copyOf(content.getBytes(StandardCharsets.UTF_8), SIZE);
+    }
+
+    private File[] objects() {
+        final File[] files = new File(root, "objects").listFiles();
+        assertNotNull(files);
+        return files;
+    }
+}
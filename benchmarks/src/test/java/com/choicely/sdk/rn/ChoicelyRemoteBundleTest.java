@@ -0,0 +1,345 @@
+package com.choicely.sdk.rn;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+
+/**
+ * {@link ChoicelyRemoteBundle#download} against a {@link MockWebServer} that cuts the first
+ * transfer mid-body, then answers the resume in each of the ways a server may; and the
+ * conditional GET built from the committed bundle's sidecar, and brotli/gzip transport encoding.
+ */
+public class ChoicelyRemoteBundleTest {
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 14 Oct 2026 08:00:00 GMT";
+    private static final int SIZE = 256 * 1024;
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private final MockWebServer server = new MockWebServer();
+    private byte[] body;
+    private String sha256;
+    private String url;
+    private File dest;
+
+    @Before
+    public void setUp() throws Exception {
+        body = new byte[SIZE];
+        new Random(1).nextBytes(body);
+        sha256 = ChoicelyBundleMetadata.toHex(MessageDigest.getInstance("SHA-256").digest(body), 32);
+        server.start();
+        url = server.url("/index.android.bundle").toString();
+        dest = new File(tmp.getRoot(), "bundles/index.android.bundle");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void resumesCutTransferWithRangeAndIfRange() throws Exception {
+        final long kept = cutFirstTransfer();
+        server.enqueue(new MockResponse()
+                .setResponseCode(206)
+                .setHeader("ETag", ETAG)
+                .setHeader("Content-Range", "bytes " + kept + "-" + (SIZE - 1) + "/" + SIZE)
+                .setBody(new Buffer().write(Arrays.copyOfRange(body, (int) kept, SIZE))));
+
+        assertTrue(download(sha256));
+
+        final RecordedRequest resume = server.takeRequest();
+        assertEquals("bytes=" + kept + "-", resume.getHeader("Range"));
+        assertEquals(ETAG, resume.getHeader("If-Range"));
+        assertEquals("identity", resume.getHeader("Accept-Encoding"));
+        assertArrayEquals(body, Files.readAllBytes(dest.toPath()));
+        assertNull(partial());
+    }
+
+    @Test
+    public void restartsWhenServerIgnoresRange() throws Exception {
+        cutFirstTransfer();
+        server.enqueue(full());
+
+        assertTrue(download(sha256));
+
+        assertNotNull(server.takeRequest().getHeader("Range"));
+        assertArrayEquals(body, Files.readAllBytes(dest.toPath()));
+        assertNull(partial());
+    }
+
+    @Test
+    public void refetchesInFullAfterRangeNotSatisfiable() throws Exception {
+        cutFirstTransfer();
+        server.enqueue(new MockResponse().setResponseCode(416));
+        server.enqueue(full());
+
+        assertTrue(download(sha256));
+
+        assertNotNull(server.takeRequest().getHeader("Range"));
+        final RecordedRequest refetch = server.takeRequest();
+        assertNull(refetch.getHeader("Range"));
+        assertNull(refetch.getHeader("If-Range"));
+        assertEquals(3, server.getRequestCount());
+        assertArrayEquals(body, Files.readAllBytes(dest.toPath()));
+        assertNull(partial());
+    }
+
+    @Test
+    public void digestMismatchDiscardsDownload() throws Exception {
+        server.enqueue(full());
+
+        assertFalse(download(sha256.replace(sha256.charAt(0), sha256.charAt(0) == '0' ? '1' : '0')));
+
+        assertFalse(dest.exists());
+        assertNull(partial());
+    }
+
+    @Test
+    public void digestCoversResumedPrefix() throws Exception {
+        final long kept = cutFirstTransfer();
+        try (RandomAccessFile f = new RandomAccessFile(partial(), "rw")) {
+            f.seek(0);
+            f.write(body[0] ^ 0xFF);
+        }
+        server.enqueue(new MockResponse()
+                .setResponseCode(206)
+                .setHeader("ETag", ETAG)
+                .setHeader("Content-Range", "bytes " + kept + "-" + (SIZE - 1) + "/" + SIZE)
+                .setBody(new Buffer().write(Arrays.copyOfRange(body, (int) kept, SIZE))));
+
+        assertFalse(download(sha256));
+
+        assertFalse(dest.exists());
+        assertNull(partial());
+    }
+
+    @Test
+    public void notModifiedKeepsBundleAndSidecar() throws Exception {
+        server.enqueue(full().setHeader("Last-Modified", LAST_MODIFIED));
+        assertTrue(download(sha256));
+        server.takeRequest();
+        final File sidecar = ChoicelyBundleMetadata.sidecarOf(dest);
+        final byte[] sidecarBytes = Files.readAllBytes(sidecar.toPath());
+        final long bundleModified = dest.lastModified();
+        final long sidecarModified = sidecar.lastModified();
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        assertTrue(download(sha256));
+
+        final RecordedRequest revalidate = server.takeRequest();
+        assertEquals(ETAG, revalidate.getHeader("If-None-Match"));
+        assertEquals(LAST_MODIFIED, revalidate.getHeader("If-Modified-Since"));
+        assertArrayEquals(body, Files.readAllBytes(dest.toPath()));
+        assertArrayEquals(sidecarBytes, Files.readAllBytes(sidecar.toPath()));
+        assertEquals(bundleModified, dest.lastModified());
+        assertEquals(sidecarModified, sidecar.lastModified());
+    }
+
+    @Test
+    public void fullResponseReplacesStaleSidecar() throws Exception {
+        server.enqueue(full());
+        assertTrue(download(null));
+        server.takeRequest();
+        final byte[] changed = Arrays.copyOf(body, SIZE / 2);
+        final String changedSha256 = ChoicelyBundleMetadata.toHex(MessageDigest.getInstance("SHA-256").digest(changed), 32);
+        // The resource changed, so the server answers the conditional request in full.
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v2\"").setBody(new Buffer().write(changed)));
+
+        assertTrue(download(null));
+
+        assertEquals(ETAG, server.takeRequest().getHeader("If-None-Match"));
+        assertArrayEquals(changed, Files.readAllBytes(dest.toPath()));
+        final ChoicelyBundleMetadata meta = ChoicelyBundleMetadata.read(dest);
+        assertNotNull(meta);
+        assertEquals("\"v2\"", meta.etag);
+        assertNull(meta.lastModified);
+        assertEquals(changed.length, meta.length);
+        assertEquals(changedSha256, meta.sha256);
+
+        server.enqueue(new MockResponse().setResponseCode(304));
+        assertTrue(download(null));
+        assertEquals("\"v2\"", server.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void sidecarNotUsedWhenBundleNoLongerMatches() throws Exception {
+        server.enqueue(full());
+        assertTrue(download(null));
+        server.takeRequest();
+        Files.write(dest.toPath(), Arrays.copyOf(body, SIZE / 2));
+        server.enqueue(full());
+
+        assertTrue(download(sha256));
+
+        final RecordedRequest refetch = server.takeRequest();
+        assertNull(refetch.getHeader("If-None-Match"));
+        assertNull(refetch.getHeader("If-Modified-Since"));
+        assertArrayEquals(body, Files.readAllBytes(dest.toPath()));
+    }
+
+    @Test
+    public void decodesBrotliBody() throws Exception {
+        server.enqueue(full().setHeader("Content-Encoding", "br").setBody(new Buffer().write(brotli(body))));
+
+        assertTrue(download(sha256));
+
+        assertEquals("br, gzip", server.takeRequest().getHeader("Accept-Encoding"));
+        assertDecodedCommitted();
+    }
+
+    @Test
+    public void decodesGzipBody() throws Exception {
+        server.enqueue(full().setHeader("Content-Encoding", "gzip").setBody(new Buffer().write(gzip(body))));
+
+        assertTrue(download(sha256));
+
+        assertEquals("br, gzip", server.takeRequest().getHeader("Accept-Encoding"));
+        assertDecodedCommitted();
+    }
+
+    @Test
+    public void encodedTransferIsNotResumed() throws Exception {
+        server.enqueue(full()
+                .setHeader("Content-Encoding", "gzip")
+                .setBody(new Buffer().write(gzip(body)))
+                .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+        assertFalse(download(sha256));
+        server.takeRequest();
+        server.enqueue(full().setHeader("Content-Encoding", "gzip").setBody(new Buffer().write(gzip(body))));
+
+        assertTrue(download(sha256));
+
+        final RecordedRequest refetch = server.takeRequest();
+        assertNull(refetch.getHeader("Range"));
+        assertEquals("br, gzip", refetch.getHeader("Accept-Encoding"));
+        assertDecodedCommitted();
+    }
+
+    @Test
+    public void resumeRejectsEncodedPartialContent() throws Exception {
+        final long kept = cutFirstTransfer();
+        server.enqueue(new MockResponse()
+                .setResponseCode(206)
+                .setHeader("ETag", ETAG)
+                .setHeader("Content-Encoding", "gzip")
+                .setHeader("Content-Range", "bytes " + kept + "-" + (SIZE - 1) + "/" + SIZE)
+                .setBody(new Buffer().write(gzip(Arrays.copyOfRange(body, (int) kept, SIZE)))));
+
+        assertFalse(download(sha256));
+
+        assertEquals("identity", server.takeRequest().getHeader("Accept-Encoding"));
+        assertFalse(dest.exists());
+        assertNull(partial());
+    }
+
+    /**
+     * The committed file and its sidecar hold the decoded body, not the bytes on the wire.
+     */
+    private void assertDecodedCommitted() throws Exception {
+        assertArrayEquals(body, Files.readAllBytes(dest.toPath()));
+        final ChoicelyBundleMetadata meta = ChoicelyBundleMetadata.read(dest);
+        assertNotNull(meta);
+        assertEquals(SIZE, meta.length);
+        assertEquals(sha256, meta.sha256);
+        assertNull(partial());
+    }
+
+    private static byte[] gzip(final byte[] data) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Brotli stream of uncompressed meta-blocks (RFC 7932 section 9.2), so the test needs no
+     * encoder.
+     */
+    private static byte[] brotli(final byte[] data) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long bits = 0;
+        int count = 0;
+        // WBITS = 22: '1' then 3-bit 5.
+        bits |= 1 | (5 << 1);
+        count += 4;
+        for (int off = 0; off < data.length; off += 65536) {
+            final int len = Math.min(65536, data.length - off);
+            // ISLAST = 0, MNIBBLES = 4 (code 0), MLEN - 1, ISUNCOMPRESSED = 1.
+            bits |= (long) (len - 1) << (count + 3);
+            bits |= 1L << (count + 19);
+            count += 20;
+            while (count > 0) {
+                out.write((int) bits);
+                bits >>>= 8;
+                count -= 8;
+            }
+            bits = 0;
+            count = 0;
+            out.write(data, off, len);
+        }
+        // ISLAST = 1, ISLASTEMPTY = 1.
+        out.write(0x03);
+        return out.toByteArray();
+    }
+
+    /**
+     * Serves the full body but drops the connection halfway through it.
+     *
+     * @return length of the partial file kept for resuming.
+     */
+    private long cutFirstTransfer() throws Exception {
+        server.enqueue(full().setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+        assertFalse(download(sha256));
+        server.takeRequest();
+        final File partial = partial();
+        assertNotNull("cut transfer must be kept for resuming", partial);
+        final long kept = partial.length();
+        assertTrue("kept " + kept, kept > 0 && kept < SIZE);
+        assertFalse(dest.exists());
+        return kept;
+    }
+
+    private MockResponse full() {
+        return new MockResponse().setHeader("ETag", ETAG).setBody(new Buffer().write(body));
+    }
+
+    private boolean download(final String expectedSha256) {
+        return ChoicelyRemoteBundle.download(url, dest, false, expectedSha256).join();
+    }
+
+    private File partial() {
+        final File[] parts = dest.getParentFile().listFiles((dir, name) -> name.endsWith(".part"));
+        if (parts == null || parts.length == 0) {
+            return null;
+        }
+        assertEquals(1, parts.length);
+        return parts[0];
+    }
+}
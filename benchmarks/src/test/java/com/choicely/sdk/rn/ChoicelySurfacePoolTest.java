@@ -0,0 +1,218 @@
+package com.choicely.sdk.rn;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.view.ViewGroup;
+
+import com.facebook.react.ReactHost;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.interfaces.TaskInterface;
+import com.facebook.react.interfaces.fabric.ReactSurface;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link ChoicelySurfacePool#claim} hits and misses with fake hosts and surfaces, and the props of
+ * an open reaching the claimed surface through {@link ChoicelySurfaceProps}.
+ */
+public class ChoicelySurfacePoolTest {
+    private final ChoicelySurfaceProps surfaceProps = new ChoicelySurfaceProps();
+    private final List<String> events = new ArrayList<>();
+    private final FakeHost host = new FakeHost();
+    private final FakeHosts hosts = new FakeHosts(host);
+    private ChoicelySurfacePool pool;
+
+    @Before
+    public void setUp() {
+        surfaceProps.addListener((surfaceId, props) -> events.add(surfaceId + " " + props.getString("start")));
+        pool = new ChoicelySurfacePool(new FakeContext(), hosts, surfaceProps, "counter, hello", "2", "300");
+        pool.start();
+        assertEquals(2, host.surfaces.size());
+    }
+
+    @Test
+    public void routeWithQueryIsServedFromPool() {
+        // MyContentFactory's props for choicely://special/rn/counter?start=5&label=caf%C3%A9
+        final Bundle props = new Bundle();
+        props.putString("start", "5");
+        props.putString("label", "caf\u00e9");
+        final FakeSurface pooled = host.surfaces.get(0);
+
+        final ReactSurface claimed = pool.claim(host, "counter", props);
+
+        assertSame(pooled, claimed);
+        assertTrue(pooled.started);
+        assertHitsAndMisses("counter", 1, 0);
+        final Bundle delivered = surfaceProps.get(pooled.surfaceId());
+        assertNotNull(delivered);
+        assertEquals("5", delivered.getString("start"));
+        assertEquals("caf\u00e9", delivered.getString("label"));
+        assertEquals(List.of(pooled.surfaceId() + " 5"), events);
+        // Keyed by surface: the other pooled surface has nothing.
+        assertNull(surfaceProps.get(host.surfaces.get(1).surfaceId()));
+        // A replacement is rendered for the next open, with its own id.
+        assertEquals(3, host.surfaces.size());
+        assertEquals("counter", host.surfaces.get(2).moduleName);
+        assertNotEquals(pooled.surfaceId(), host.surfaces.get(2).surfaceId());
+    }
+
+    @Test
+    public void openWithoutPropsDeliversNothing() {
+        final FakeSurface pooled = host.surfaces.get(1);
+
+        assertSame(pooled, pool.claim(host, "hello", new Bundle()));
+
+        assertHitsAndMisses("hello", 1, 0);
+        assertNull(surfaceProps.get(pooled.surfaceId()));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void routeWithQueryMissesWhenNotPooled() {
+        final Bundle props = new Bundle();
+        props.putString("start", "5");
+
+        assertNull(pool.claim(host, "tic_tac_toe", props));
+        final FakeHost replaced = new FakeHost();
+        assertNull(pool.claim(replaced, "counter", props));
+
+        assertHitsAndMisses("tic_tac_toe", 0, 1);
+        assertHitsAndMisses("counter", 0, 1);
+        assertTrue(events.isEmpty());
+        // The surface of the other host was dropped and rendered again.
+        assertTrue(host.surfaces.get(0).stopped);
+        assertEquals(1, hosts.destroyed);
+    }
+
+    @Test
+    public void releaseForgetsDeliveredProps() {
+        final Bundle props = new Bundle();
+        props.putString("start", "5");
+        final ReactSurface claimed = pool.claim(host, "counter", props);
+        final FakeSurface surface = host.surfaces.get(0);
+
+        pool.release(claimed);
+
+        assertTrue(surface.stopped);
+        assertNull(surfaceProps.get(surface.surfaceId()));
+        assertEquals(1, hosts.destroyed);
+    }
+
+    private void assertHitsAndMisses(final String component, final int hits, final int misses) {
+        final ChoicelySurfacePool.Stats stats = pool.getStats().get(component);
+        assertNotNull(stats);
+        assertEquals(hits, stats.hits);
+        assertEquals(misses, stats.misses);
+    }
+
+    private static final class FakeContext extends Context {
+        @Override
+        public Context getApplicationContext() {
+            return this;
+        }
+    }
+
+    private static final class FakeHosts implements ChoicelySurfacePool.Hosts {
+        private final ReactHost host;
+        int created;
+        int destroyed;
+
+        FakeHosts(final ReactHost host) {
+            this.host = host;
+        }
+
+        @Override
+        public ReactHost getReactHost() {
+            return host;
+        }
+
+        @Override
+        public void onReactSurfaceCreated(final ReactHost host) {
+            created++;
+        }
+
+        @Override
+        public void onReactSurfaceDestroyed(final ReactHost host) {
+            destroyed++;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> warmUp() {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override
+        public void startHost(final ReactHost host, final Runnable onReady, final Runnable onFailed) {
+            onReady.run();
+        }
+    }
+
+    private static final class FakeHost implements ReactHost {
+        private final ReactContext context = new ReactContext();
+        final List<FakeSurface> surfaces = new ArrayList<>();
+
+        @Override
+        public ReactContext getCurrentReactContext() {
+            return context;
+        }
+
+        @Override
+        public ReactSurface createSurface(final Context context, final String moduleName, final Bundle initialProps) {
+            final FakeSurface surface = new FakeSurface(moduleName, initialProps);
+            surfaces.add(surface);
+            return surface;
+        }
+    }
+
+    private static final class FakeSurface implements ReactSurface {
+        final String moduleName;
+        final Bundle initialProps;
+        private final ViewGroup view = new ViewGroup() {
+        };
+        boolean started;
+        boolean stopped;
+
+        FakeSurface(final String moduleName, final Bundle initialProps) {
+            this.moduleName = moduleName;
+            this.initialProps = initialProps;
+        }
+
+        String surfaceId() {
+            return initialProps.getString(ChoicelySurfaceProps.SURFACE_ID_PROP);
+        }
+
+        @Override
+        public TaskInterface<Void> prerender() {
+            return null;
+        }
+
+        @Override
+        public TaskInterface<Void> start() {
+            started = true;
+            return null;
+        }
+
+        @Override
+        public TaskInterface<Void> stop() {
+            stopped = true;
+            return null;
+        }
+
+        @Override
+        public ViewGroup getView() {
+            return view;
+        }
+    }
+}
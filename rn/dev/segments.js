@@ -0,0 +1,169 @@
+/**
+ * Builds a segmented Android bundle: a base bundle without the component modules listed in
+ * src/index.js `componentMapping`, plus one segment per component holding only the modules the
+ * base does not already define.
+ *
+ * A module moves out of the base when exactly one component reaches it and nothing outside the
+ * components does, so each component's own dependencies ship with its segment. Modules shared by
+ * several components stay in the base.
+ *
+ *   node rn/dev/segments.js [platform] [outDir]
+ *
+ * Output: <outDir>/index.android.bundle and <outDir>/segments/<component>.bundle, uploaded next
+ * to each other for a version (see choicely_rn_segment_url).
+ */
+const fs = require('node:fs')
+const path = require('node:path')
+
+process.env.CHOICELY_RN_SEGMENTS = '1'
+
+const Metro = require('metro')
+
+const repoRoot = path.resolve(__dirname, '../..')
+const rnRoot = path.join(repoRoot, 'rn')
+const srcRoot = path.join(rnRoot, 'src')
+
+const platform = process.argv[2] || 'android'
+const outDir = path.resolve(repoRoot, process.argv[3] || `dist/${platform}-segments`)
+
+// `name: () => require('./components/X')` entries, including the computed default entry.
+function readComponentEntries() {
+  const source = fs.readFileSync(path.join(srcRoot, 'index.js'), 'utf8')
+  const defaultName = /const defaultComponentName = '([^']+)'/.exec(source)?.[1]
+  const entryPattern = /^\s*(\[defaultComponentName\]|[A-Za-z_$][\w$]*):\s*\(\)\s*=>\s*require\('([^']+)'\)/gm
+  const entries = []
+  let match
+  while ((match = entryPattern.exec(source)) !== null) {
+    const name = match[1] === '[defaultComponentName]' ? defaultName : match[1]
+    entries.push({name, file: resolveComponentFile(path.join(srcRoot, match[2]))})
+  }
+  if (entries.length === 0) {
+    throw new Error('No componentMapping entries found in rn/src/index.js')
+  }
+  return entries
+}
+
+function resolveComponentFile(request) {
+  for (const ext of ['', '.js', '.jsx', '.ts', '.tsx']) {
+    if (fs.existsSync(request + ext) && fs.statSync(request + ext).isFile()) return request + ext
+  }
+  throw new Error(`Cannot resolve component module ${request}`)
+}
+
+async function build(baseConfig, {entry, out, serializer, runModule}) {
+  const config = {...baseConfig, serializer: {...baseConfig.serializer, ...serializer}}
+  await Metro.runBuild(config, {
+    entry,
+    out,
+    platform,
+    dev: false,
+    minify: true,
+    runModule,
+  })
+}
+
+// Module path -> resolved dependency paths, for every module of the entry's graph.
+async function readGraph(baseConfig, entry) {
+  const graph = new Map()
+  const out = path.join(outDir, '.graph.bundle')
+  await build(baseConfig, {
+    entry,
+    out,
+    runModule: true,
+    serializer: {
+      processModuleFilter: module => {
+        const dependencies = []
+        for (const dependency of module.dependencies?.values() ?? []) {
+          // Unresolved optional dependencies have no path.
+          if (dependency.absolutePath != null) dependencies.push(dependency.absolutePath)
+        }
+        graph.set(module.path, dependencies)
+        return true
+      },
+    },
+  })
+  fs.rmSync(out, {force: true})
+  return graph
+}
+
+function reachable(graph, roots, skip) {
+  const seen = new Set()
+  const stack = [...roots]
+  while (stack.length > 0) {
+    const modulePath = stack.pop()
+    if (seen.has(modulePath) || skip.has(modulePath)) continue
+    seen.add(modulePath)
+    stack.push(...(graph.get(modulePath) ?? []))
+  }
+  return seen
+}
+
+// Modules the base must not define: each component file plus whatever only that component needs.
+function segmentOnlyModules(graph, entry, componentFiles) {
+  const dependents = new Set(Array.from(graph.values()).flat())
+  // The entry plus anything Metro prepends or runs before it (prelude, polyfills, InitializeCore).
+  const roots = Array.from(graph.keys()).filter(p => p === entry || !dependents.has(p))
+  const base = reachable(graph, roots, componentFiles)
+
+  const owners = new Map()
+  for (const file of componentFiles) {
+    for (const modulePath of reachable(graph, [file], new Set())) {
+      if (!base.has(modulePath)) owners.set(modulePath, (owners.get(modulePath) ?? 0) + 1)
+    }
+  }
+  const excluded = new Set(componentFiles)
+  for (const [modulePath, count] of owners) {
+    if (count === 1) excluded.add(modulePath)
+  }
+  return excluded
+}
+
+async function main() {
+  const components = readComponentEntries()
+  const componentFiles = new Set(components.map(c => c.file))
+  const config = await Metro.loadConfig({config: path.join(rnRoot, 'metro.config.js')})
+
+  fs.rmSync(outDir, {recursive: true, force: true})
+  fs.mkdirSync(path.join(outDir, 'segments'), {recursive: true})
+
+  const entry = path.join(srcRoot, 'index.js')
+  const excluded = segmentOnlyModules(await readGraph(config, entry), entry, componentFiles)
+
+  const baseModules = new Set()
+  await build(config, {
+    entry,
+    out: path.join(outDir, `index.${platform}.bundle`),
+    runModule: true,
+    serializer: {
+      processModuleFilter: module => {
+        if (excluded.has(module.path)) return false
+        baseModules.add(module.path)
+        return true
+      },
+    },
+  })
+
+  for (const {name, file} of components) {
+    await build(config, {
+      entry: file,
+      out: path.join(outDir, 'segments', `${name}.bundle`),
+      runModule: false,
+      serializer: {
+        getPolyfills: () => [],
+        getModulesRunBeforeMainModule: () => [],
+        processModuleFilter: module =>
+          module.path !== '__prelude__' && !baseModules.has(module.path),
+      },
+    })
+  }
+
+  console.log(
+    `Segmented bundle written to ${path.relative(repoRoot, outDir)} ` +
+      `(${components.length} segments, ${excluded.size} modules moved out of the base)`,
+  )
+}
+
+main().catch(error => {
+  console.error(error)
+  process.exit(1)
+})
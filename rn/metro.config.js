@@ -19,6 +19,34 @@ if (metroPort === null) {
 
 const defaultConfig = getDefaultConfig(rnRoot)
 
+// Segmented builds (rn/dev/segments.js) need module ids that are identical across the base bundle
+// and every segment, so ids are derived from the repo-relative path instead of build order. A
+// segment cannot redefine an id the base already holds, so two paths hashing to the same id would
+// silently load the wrong module: the owners are tracked across all builds of the process and a
+// collision fails the build.
+const stableModuleIdOwners = new Map()
+
+function createStableModuleIdFactory() {
+  return modulePath => {
+    const key = path.relative(repoRoot, modulePath).split(path.sep).join('/')
+    let hash = 0x811c9dc5
+    for (let i = 0; i < key.length; i++) {
+      hash ^= key.charCodeAt(i)
+      hash = Math.imul(hash, 0x01000193)
+    }
+    const id = hash >>> 1
+    const owner = stableModuleIdOwners.get(id)
+    if (owner === undefined) {
+      stableModuleIdOwners.set(id, key)
+    } else if (owner !== key) {
+      throw new Error(`Module id collision: ${owner} and ${key} both hash to ${id}`)
+    }
+    return id
+  }
+}
+
+const segmented = process.env.CHOICELY_RN_SEGMENTS === '1'
+
 module.exports = mergeConfig(defaultConfig, {
   projectRoot: rnRoot,
   watchFolders: [path.join(repoRoot, 'node_modules')],
@@ -27,6 +55,7 @@ module.exports = mergeConfig(defaultConfig, {
     nodeModulesPaths: [path.join(repoRoot, 'node_modules')],
     disableHierarchicalLookup: true,
   },
+  serializer: segmented ? {createModuleIdFactory: createStableModuleIdFactory} : {},
   cacheStores: [
     new FileStore({
       root: path.join(repoRoot, '.cache/metro'),
@@ -0,0 +1,27 @@
+// Synchronous reads of native Choicely values, installed by the Android host as
+// `global.__choicely` (JSI host objects). Absent on iOS and web, where every getter returns the
+// fallback.
+
+function lookup(section, key) {
+  const root = global.__choicely
+  if (root == null) return undefined
+  return root[section][key]
+}
+
+/**
+ * @returns the choicely_config.json value for `key` as a string, or `fallback`.
+ */
+export function getConfigValue(key, fallback = undefined) {
+  const value = lookup('config', key)
+  return value === undefined ? fallback : value
+}
+
+/**
+ * @returns the Choicely app custom data value for `key` as a string (nested values as JSON
+ * text), or `fallback`. Reflects the latest data the app has received; read it where it is
+ * used rather than caching it.
+ */
+export function getAppDataValue(key, fallback = undefined) {
+  const value = lookup('appData', key)
+  return value === undefined ? fallback : value
+}
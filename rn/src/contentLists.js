@@ -0,0 +1,64 @@
+// Large Choicely content lists (feeds, survey results, ...) published by the Android host and
+// read through the C++ `ChoicelyContentLists` TurboModule: pages of items parsed in one call and
+// numeric fields as Float64Arrays. Absent on iOS and web, where every getter returns null.
+import {useCallback, useEffect, useState} from 'react'
+import {TurboModuleRegistry} from 'react-native'
+
+const ContentLists = TurboModuleRegistry.get('ChoicelyContentLists')
+
+/**
+ * @returns `{size, version, numericFields}` for `listId`, or null if it is not published.
+ */
+export function getContentListInfo(listId) {
+  return ContentLists ? ContentLists.getInfo(listId) : null
+}
+
+/**
+ * @returns `{version, size, items}` with up to `limit` items from `offset`, or null.
+ */
+export function getContentListPage(listId, offset, limit) {
+  return ContentLists ? ContentLists.getPage(listId, offset, limit) : null
+}
+
+/**
+ * @returns `{version, values}` where `values` is a Float64Array of `field` for every item (NaN
+ * where missing), or null if the list or the field is not published.
+ */
+export function getContentListColumn(listId, field) {
+  return ContentLists ? ContentLists.getColumn(listId, field) : null
+}
+
+/**
+ * Items of `listId` loaded a page at a time, e.g. for a FlatList:
+ *
+ *   const {items, loadMore} = useContentList('feed_key')
+ *   <FlatList data={items} onEndReached={loadMore} ... />
+ *
+ * Starts over from the first page when the list is republished.
+ */
+export function useContentList(listId, pageSize = 50) {
+  const [state, setState] = useState(() => firstPage(listId, pageSize))
+
+  useEffect(() => {
+    setState(firstPage(listId, pageSize))
+  }, [listId, pageSize])
+
+  const loadMore = useCallback(() => {
+    setState(current => {
+      if (current.items.length >= current.size) return current
+      const page = getContentListPage(listId, current.items.length, pageSize)
+      if (page == null) return emptyState
+      if (page.version !== current.version) return firstPage(listId, pageSize)
+      return {...current, items: current.items.concat(page.items)}
+    })
+  }, [listId, pageSize])
+
+  return {items: state.items, size: state.size, loadMore}
+}
+
+const emptyState = {version: 0, size: 0, items: []}
+
+function firstPage(listId, pageSize) {
+  const page = getContentListPage(listId, 0, pageSize)
+  return page == null ? emptyState : page
+}
@@ -1,9 +1,12 @@
-import React from 'react'
-import {AppRegistry, ScrollView, LogBox, View, Text} from 'react-native'
+import React, {Suspense, use} from 'react'
+import {AppRegistry, ActivityIndicator, ScrollView, LogBox, View, Text} from 'react-native'
 import {SafeAreaProvider, SafeAreaView} from 'react-native-safe-area-context'
 import {GestureHandlerRootView} from 'react-native-gesture-handler'
 import Toast from 'react-native-toast-message'
 
+import {segmentPending} from './segments'
+import {useSurfaceProps} from './surfaceProps'
+
 if (__DEV__) {
   LogBox.ignoreLogs(['Open debugger to view warnings'])
 }
@@ -145,6 +148,44 @@ function createRootComponent(Comp, {useSafeAreaProvider, rootOptions = {}}) {
   }
 }
 
+function SegmentLoading() {
+  return (
+    <View style={{flex: 1, justifyContent: 'center', alignItems: 'center'}}>
+      <ActivityIndicator />
+    </View>
+  )
+}
+
+function createLazyRootComponent(name, loader, {useSafeAreaProvider}) {
+  let Root = null
+
+  // Resolved on first render so that in a segmented build a component's segment is only loaded
+  // when one of its surfaces is actually mounted. While the segment is fetched the render
+  // suspends and the JS thread stays free.
+  function LazyContent(props) {
+    if (Root === null) {
+      const pending = segmentPending(name, loader)
+      if (pending !== null) use(pending)
+
+      const SafeComp = createSafeComponent(name, loader)
+      const {module} = safeLoadModule(name, loader)
+      const rootOptions = module?.rootOptions ?? {}
+      Root = createRootComponent(SafeComp, {useSafeAreaProvider, rootOptions})
+    }
+    return <Root {...props} />
+  }
+
+  return function LazyRoot(props) {
+    // Pooled surfaces get their props after they have rendered; see surfaceProps.js.
+    const surfaceProps = useSurfaceProps(props)
+    return (
+      <Suspense fallback={<SegmentLoading />}>
+        <LazyContent {...surfaceProps} />
+      </Suspense>
+    )
+  }
+}
+
 let _registered = false
 
 export function registerComponents({useSafeAreaProvider = true} = {}) {
@@ -152,11 +193,8 @@ export function registerComponents({useSafeAreaProvider = true} = {}) {
 
   Object.entries(componentMapping).forEach(([name, loader]) => {
     if (loader == null) return
-    const SafeComp = createSafeComponent(name, loader)
-    const {module} = safeLoadModule(name, loader)
-    const rootOptions = module?.rootOptions ?? {}
 
-    const RootComponent = createRootComponent(SafeComp, {useSafeAreaProvider, rootOptions})
+    const RootComponent = createLazyRootComponent(name, loader, {useSafeAreaProvider})
 
     componentMapping[name] = {
       loader,
@@ -0,0 +1,59 @@
+import {NativeModules} from 'react-native'
+
+// Present on Android when segmented bundles are enabled; absent on iOS and web, where every
+// component is part of the main bundle.
+const ChoicelySegments = NativeModules.ChoicelySegments
+
+const loadedSegments = new Set()
+// name -> promise of the first load attempt, so every render suspends on the same promise.
+const pendingSegments = new Map()
+
+function segmentsEnabled() {
+  return ChoicelySegments != null && ChoicelySegments.enabled === true
+}
+
+/**
+ * Fetches and evaluates the bundle segment for `name` once. The host fetches and caches segments
+ * off the JS thread (MyContentFactory starts the download when it resolves the route, so this is
+ * usually a cache read).
+ *
+ * @returns promise of true once the segment has been evaluated, false if it is unavailable.
+ */
+export function loadSegment(name) {
+  if (loadedSegments.has(name)) return Promise.resolve(true)
+  if (!segmentsEnabled()) return Promise.resolve(false)
+
+  let pending = pendingSegments.get(name)
+  if (pending === undefined) {
+    pending = ChoicelySegments.load(name).then(
+      source => {
+        if (typeof source !== 'string' || source.length === 0) return false
+        // Indirect eval: the segment's __d() calls must run in global scope, like the base bundle.
+        ;(0, eval)(source)
+        loadedSegments.add(name)
+        return true
+      },
+      () => false,
+    )
+    pendingSegments.set(name, pending)
+  }
+  return pending
+}
+
+/**
+ * Checks whether `loader` needs its segment first: a module missing from the base bundle
+ * ("Requiring unknown module") does. In a regular single-file bundle this is always null and
+ * segments are never touched.
+ *
+ * @returns null if `loader` can run now, otherwise the promise of {@link loadSegment}. Once that
+ * settles, `loader` either succeeds or fails with its own error.
+ */
+export function segmentPending(name, loader) {
+  if (loadedSegments.has(name) || !segmentsEnabled()) return null
+  try {
+    loader()
+    return null
+  } catch (error) {
+    return loadSegment(name)
+  }
+}
@@ -0,0 +1,44 @@
+import {useEffect, useState} from 'react'
+import {DeviceEventEmitter, NativeModules} from 'react-native'
+
+// Present on Android, where components listed in rn_surface_pool are rendered before they are
+// opened. Such a surface starts with only SURFACE_ID_PROP; the props of the open that claims it
+// arrive afterwards, keyed by that id. Absent on iOS and web, where props are always initial.
+const ChoicelySurfaceProps = NativeModules.ChoicelySurfaceProps
+
+const SURFACE_ID_PROP = '__choicelySurfaceId'
+const EVENT = 'choicelySurfaceProps'
+
+/**
+ * @returns `props` without the pooled surface id, merged with the props delivered to that surface
+ * once it is claimed. Surfaces that were not pooled get `props` unchanged.
+ */
+export function useSurfaceProps(props) {
+  const surfaceId = props[SURFACE_ID_PROP]
+  const [delivered, setDelivered] = useState(null)
+
+  useEffect(() => {
+    if (surfaceId == null || ChoicelySurfaceProps == null) return undefined
+
+    let active = true
+    const subscription = DeviceEventEmitter.addListener(EVENT, event => {
+      if (event.surfaceId === surfaceId) setDelivered(event.props)
+    })
+    // Claimed before this effect subscribed: the event is gone, the props are not.
+    ChoicelySurfaceProps.get(surfaceId).then(
+      value => {
+        if (active && value != null) setDelivered(value)
+      },
+      () => {},
+    )
+    return () => {
+      active = false
+      subscription.remove()
+    }
+  }, [surfaceId])
+
+  if (surfaceId == null) return props
+
+  const {[SURFACE_ID_PROP]: _surfaceId, ...rest} = props
+  return delivered == null ? rest : {...rest, ...delivered}
+}